@@ -0,0 +1,64 @@
+package ru.kanban.bench;
+
+import ru.kanban.manager.TaskManager;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Генераторы досок для бенчмарков. Доски детерминированы: одинаковые параметры дают одинаковые задачи.
+ * Запланированные задачи идут слотами по {@link #SLOT} с таким же промежутком, так что внутри слота
+ * задачу можно сдвинуть, не создавая пересечений.
+ */
+final class Boards {
+
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final Duration SLOT = Duration.ofMinutes(30);
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private Boards() {
+    }
+
+    /**
+     * Заполняет менеджер одним пакетом: {@code tasks} задач и {@code epics} эпиков по {@code subTasksPerEpic}
+     * подзадач. Если {@code scheduled}, каждая задача и подзадача получает свой слот.
+     */
+    static void fill(TaskManager manager, int tasks, int epics, int subTasksPerEpic, boolean scheduled) {
+        manager.batch(board -> {
+            int slot = 0;
+            for (int i = 0; i < tasks; i++) {
+                Task task = board.createTask("Задача " + i, "Описание задачи номер " + i);
+                task.setStatus(STATUSES[i % STATUSES.length]);
+                if (scheduled) {
+                    plan(task, slot++);
+                }
+                board.updateTask(task);
+            }
+            for (int e = 0; e < epics; e++) {
+                Epic epic = board.createEpic("Эпик " + e, "Описание эпика " + e);
+                for (int i = 0; i < subTasksPerEpic; i++) {
+                    SubTask sub = board.createSubTask("Подзадача " + i, "Эпик " + e, epic.getId());
+                    sub.setStatus(STATUSES[i % STATUSES.length]);
+                    if (scheduled) {
+                        plan(sub, slot++);
+                    }
+                    board.updateSubTask(sub);
+                }
+            }
+        });
+    }
+
+    static LocalDateTime slotStart(int slot) {
+        return START.plus(SLOT.multipliedBy(2L * slot));
+    }
+
+    private static void plan(Task task, int slot) {
+        task.setStartTime(slotStart(slot));
+        task.setDuration(SLOT);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.kanban.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kanban.manager.InMemoryTaskManager;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.TaskStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание и изменение подзадач большого эпика: пересчёт статуса и времени эпика и проверка пересечений.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpicBenchmark {
+
+    @Param({"1000", "100000"})
+    int subTasks;
+
+    private InMemoryTaskManager manager;
+    private Epic epic;
+    private SubTask[] existing;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        Boards.fill(manager, 0, 1, subTasks, true);
+        epic = manager.getAllEpics().getFirst();
+        List<SubTask> all = manager.getSubTasksOfEpic(epic.getId());
+        existing = all.toArray(SubTask[]::new);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public SubTask createSubTask() {
+        return manager.createSubTask("Новая", "d", epic.getId());
+    }
+
+    @Benchmark
+    public TaskStatus updateSubTaskStatus() {
+        SubTask sub = next();
+        sub.setStatus(sub.getStatus() == TaskStatus.DONE ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+        manager.updateSubTask(sub);
+        return epic.getStatus();
+    }
+
+    /**
+     * Сдвиг внутри своего слота: проходит проверку пересечений и перестраивает время эпика.
+     */
+    @Benchmark
+    public Object updateSubTaskStart() {
+        SubTask sub = next();
+        sub.setStartTime(sub.getStartTime().plus(sub.getStartTime().getMinute() % 30 == 0
+                ? Boards.SLOT.dividedBy(2) : Boards.SLOT.dividedBy(2).negated()));
+        manager.updateSubTask(sub);
+        return epic.getEndTime();
+    }
+
+    private SubTask next() {
+        SubTask sub = existing[cursor];
+        cursor = (cursor + 1) % existing.length;
+        return sub;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.kanban.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kanban.manager.EvictionPolicy;
+import ru.kanban.manager.HistoryManager;
+import ru.kanban.manager.Managers;
+import ru.kanban.task.Task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись просмотра в историю. Задачи берутся из пула вчетверо больше ёмкости,
+ * так что часть добавлений перемещает уже записанную задачу, а часть вытесняет старую.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    @Param({"10", "1000"})
+    int capacity;
+
+    @Param({"LRU", "LFU"})
+    EvictionPolicy policy;
+
+    private HistoryManager history;
+    private Task[] pool;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        history = Managers.getHistory(capacity, policy);
+        pool = new Task[capacity * 4];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Task(i, "Задача " + i, "d");
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        // Шаг 7 взаимно прост с размером пула и перемешивает повторные просмотры.
+        cursor = (cursor + 7) % pool.length;
+        history.add(pool[cursor]);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.kanban.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kanban.manager.FileBackedTaskManager;
+import ru.kanban.manager.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Запись полного снимка и загрузка доски из файла на 1 тыс., 100 тыс. и 1 млн строк в обоих форматах.
+ * Доска — 80% задач и 20% подзадач по 100 на эпик, все запланированы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    private static final int SUBTASKS_PER_EPIC = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    @Param({"CSV", "BINARY"})
+    String format;
+
+    private Path dir;
+    private Path file;
+    private SnapshotWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("kanban-bench");
+        file = dir.resolve("board");
+        writer = new SnapshotWriter(file, "CSV".equals(format) ? SnapshotFormat.CSV : SnapshotFormat.BINARY);
+        int epics = rows / 5 / (SUBTASKS_PER_EPIC + 1);
+        Boards.fill(writer, rows - epics * (SUBTASKS_PER_EPIC + 1), epics, SUBTASKS_PER_EPIC, true);
+        writer.snapshot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        writer.snapshot();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        loaded.close();
+        return loaded;
+    }
+
+    /**
+     * Открывает защищённый {@code save()}, чтобы мерить запись снимка отдельно от журнала.
+     */
+    static final class SnapshotWriter extends FileBackedTaskManager {
+        SnapshotWriter(Path filePath, SnapshotFormat format) {
+            super(filePath, format);
+        }
+
+        void snapshot() {
+            save();
+        }
+    }
+}
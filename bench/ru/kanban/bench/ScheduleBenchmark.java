@@ -0,0 +1,75 @@
+package ru.kanban.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kanban.manager.InMemoryTaskManager;
+import ru.kanban.task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расписание с большим числом запланированных задач: перенос задачи (проверка пересечений),
+ * чтение приоритетного списка с кешем и без него, диапазонный запрос на неделю.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+
+    @Param({"1000", "100000"})
+    int scheduled;
+
+    private InMemoryTaskManager manager;
+    private Task[] tasks;
+    private int cursor;
+    private LocalDateTime weekStart;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        Boards.fill(manager, scheduled, 0, 0, true);
+        tasks = manager.getPrioritizedTasks().toArray(Task[]::new);
+        weekStart = Boards.slotStart(scheduled / 2);
+    }
+
+    @Benchmark
+    public Task moveTask() {
+        Task task = tasks[cursor];
+        cursor = (cursor + 1) % tasks.length;
+        LocalDateTime start = task.getStartTime();
+        task.setStartTime(start.getMinute() == 0 ? start.plusMinutes(15) : start.minusMinutes(15));
+        manager.updateTask(task);
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> prioritizedCached() {
+        return manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> prioritizedAfterChange() {
+        moveTask();
+        return manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> tasksOfWeek() {
+        return manager.getTasksBetween(weekStart, weekStart.plus(Duration.ofDays(7)));
+    }
+}
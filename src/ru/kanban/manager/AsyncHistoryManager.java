@@ -0,0 +1,208 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * История, в которую просмотры записываются не в вызывающем потоке.
+ * {@link #add} только кладёт задачу в ограниченную кольцевую очередь без блокировок (много писателей,
+ * один читатель), а фоновый поток-демон пачками переносит события в обёрнутую историю.
+ * {@link #getHistory}, {@link #remove} и {@link #flush} сначала применяют все уже поставленные события,
+ * поэтому порядок «просмотр, затем удаление» сохраняется.
+ * Если очередь заполнена, {@code add} ждёт, пока фоновый поток её разберёт.
+ * Обёрнутая история вызывается из разных потоков (под общей блокировкой), поэтому не должна
+ * зависеть от вызывающего потока — например, {@link SessionHistoryManager} здесь не подходит.
+ * Экземпляр создаётся через {@link #start}: фоновый поток запускается, когда объект уже построен.
+ */
+public class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int BATCH_SIZE = 256;
+
+    private final HistoryManager delegate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicReferenceArray<Task> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+
+    private AsyncHistoryManager(HistoryManager delegate, int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость очереди должна быть положительной: " + queueCapacity);
+        }
+        this.delegate = delegate;
+        int capacity = Integer.highestOneBit(queueCapacity);
+        if (capacity < queueCapacity) capacity <<= 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public static AsyncHistoryManager start(HistoryManager delegate) {
+        return start(delegate, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public static AsyncHistoryManager start(HistoryManager delegate, int queueCapacity) {
+        AsyncHistoryManager history = new AsyncHistoryManager(delegate, queueCapacity);
+        history.consumer = new Thread(history::consume, "history-consumer");
+        history.consumer.setDaemon(true);
+        history.consumer.start();
+        return history;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        if (!running) {
+            lock.lock();
+            try {
+                drain(tail.get(), Long.MAX_VALUE);
+                delegate.add(task);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        while (!offer(task)) {
+            LockSupport.unpark(consumer);
+            Thread.onSpinWait();
+            if (!running) {
+                flush();
+            }
+        }
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            drain(tail.get(), Long.MAX_VALUE);
+            return delegate.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            drain(tail.get(), Long.MAX_VALUE);
+            delegate.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        lock.lock();
+        try {
+            drain(tail.get(), Long.MAX_VALUE);
+            delegate.removeAll(ids);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            drain(tail.get(), Long.MAX_VALUE);
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Применяет все события, поставленные в очередь до вызова.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            drain(tail.get(), Long.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Останавливает фоновый поток и применяет оставшиеся события; дальнейшие {@code add} выполняются синхронно.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private boolean offer(Task task) {
+        while (true) {
+            long t = tail.get();
+            if (t - head >= ring.length()) return false;
+            if (tail.compareAndSet(t, t + 1)) {
+                ring.set((int) (t & mask), task);
+                return true;
+            }
+        }
+    }
+
+    private void consume() {
+        while (running) {
+            boolean applied;
+            lock.lock();
+            try {
+                applied = drain(tail.get(), BATCH_SIZE) > 0;
+            } finally {
+                lock.unlock();
+            }
+            if (!applied) {
+                consumerParked = true;
+                if (head == tail.get() && running) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+            }
+        }
+    }
+
+    /**
+     * Переносит события с номерами до {@code until} (не более {@code limit}) в обёрнутую историю.
+     * Выполняется под {@link #lock}, так что читатель очереди всегда один.
+     * Ячейка, которую писатель уже занял, но ещё не заполнил, дожидается записи.
+     */
+    private int drain(long until, long limit) {
+        long h = head;
+        int applied = 0;
+        while (h < until && applied < limit) {
+            int slot = (int) (h & mask);
+            Task task;
+            while ((task = ring.get(slot)) == null) {
+                Thread.onSpinWait();
+            }
+            ring.set(slot, null);
+            delegate.add(task);
+            head = ++h;
+            applied++;
+        }
+        return applied;
+    }
+}
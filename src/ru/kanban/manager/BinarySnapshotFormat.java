@@ -0,0 +1,583 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Двоичный снимок: сигнатура {@code KBN} и байт версии, поколение, затем записи вида
+ * «длина тела, тело» и завершающая запись нулевой длины.
+ * Целые числа — varint (знаковые в zigzag), строки — длина в байтах и UTF-8,
+ * время — минуты от эпохи (UTC), а если в нём есть секунды — секунды и наносекунды.
+ * Длина тела позволяет пропустить запись целиком и дописывать в конец тела новые поля.
+ * С версии 2 за завершающей записью следует история просмотров: число id и сами id от старых к новым.
+ * Затем идёт индекс: записи фиксированной длины (id, тип, id эпика, смещение),
+ * отсортированные по (id, тип), и хвост «начало индекса, число записей, {@code KIDX}».
+ * Потоковое чтение индекс не читает; он нужен {@link MappedArchiveTaskManager}.
+ */
+class BinarySnapshotFormat implements SnapshotFormat {
+
+    static final int VERSION = 2;
+    static final byte[] MAGIC = {'K', 'B', 'N', VERSION};
+    static final byte[] INDEX_MAGIC = {'K', 'I', 'D', 'X'};
+    static final int INDEX_ENTRY_BYTES = 20;
+    static final int INDEX_TRAILER_BYTES = 16;
+    static final int NO_EPIC = Integer.MIN_VALUE;
+
+    private static final int HAS_START = 1;
+    private static final int PRECISE_START = 2;
+    private static final int HAS_DURATION = 4;
+    private static final int PRECISE_DURATION = 8;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    @Override
+    public void write(Path file, long generation, BoardSnapshot board, int[] history) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            Output out = new Output(stream, 64 * 1024);
+            Output body = new Output(null, 256);
+            RecordIndex index = new RecordIndex(
+                    board.getTasks().size() + board.getEpics().size() + board.getSubTasks().size());
+            out.bytes(MAGIC, MAGIC.length);
+            out.varLong(generation);
+            for (Task task : board.getTasks()) {
+                writeRecord(out, body, index, task);
+            }
+            for (Epic epic : board.getEpics()) {
+                writeRecord(out, body, index, epic);
+            }
+            for (SubTask subTask : board.getSubTasks()) {
+                writeRecord(out, body, index, subTask);
+            }
+            out.varLong(0);
+            out.varLong(history.length);
+            for (int id : history) {
+                out.varLong(zigzag(id));
+            }
+
+            long indexStart = out.position();
+            index.sort();
+            for (int i = 0; i < index.size(); i++) {
+                out.fixedInt(index.id(i));
+                out.fixedInt(index.type(i));
+                out.fixedInt(index.epicId(i));
+                out.fixedLong(index.offset(i));
+            }
+            out.fixedLong(indexStart);
+            out.fixedInt(index.size());
+            out.bytes(INDEX_MAGIC, INDEX_MAGIC.length);
+            out.flush();
+        }
+    }
+
+    @Override
+    public long read(Path file, Consumer<Task> sink, IntConsumer history) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            StreamInput in = new StreamInput(stream);
+            long generation = readHeader(in, file);
+            try {
+                for (int record = 0; ; record++) {
+                    long length = in.varLong();
+                    if (length == 0) break;
+                    long start = in.position();
+                    Task task;
+                    try {
+                        task = decode(in);
+                    } catch (EOFException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        throw new ManagerSaveException("Ошибка при разборе записи снимка №" + record + ": " + file, e);
+                    }
+                    long consumed = in.position() - start;
+                    if (consumed > length) {
+                        throw new ManagerSaveException("Ошибка при разборе записи снимка №" + record + ": " + file);
+                    }
+                    in.skip(length - consumed);
+                    sink.accept(task);
+                }
+                if (in.version >= 2) {
+                    for (long count = in.varLong(); count > 0; count--) {
+                        history.accept(Math.toIntExact(unzigzag(in.varLong())));
+                    }
+                }
+            } catch (EOFException e) {
+                throw new ManagerSaveException("Снимок обрезан: " + file, e);
+            }
+            return generation;
+        }
+    }
+
+    @Override
+    public long readGeneration(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return readHeader(new StreamInput(stream), file);
+        }
+    }
+
+    /**
+     * Проверяет сигнатуру и версию, запоминает версию в {@code in} и возвращает поколение.
+     */
+    static long readHeader(Input in, Path file) throws IOException {
+        byte[] head = new byte[MAGIC.length];
+        for (int i = 0; i < head.length; i++) {
+            head[i] = (byte) in.next();
+        }
+        if (!isSignature(head)) {
+            throw new ManagerSaveException("Неизвестный формат снимка: " + file);
+        }
+        in.version = head[MAGIC.length - 1];
+        return in.varLong();
+    }
+
+    /**
+     * Начинается ли файл с сигнатуры двоичного снимка поддерживаемой версии.
+     */
+    static boolean isSignature(byte[] head) {
+        if (head.length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length - 1; i++) {
+            if (head[i] != MAGIC[i]) return false;
+        }
+        int version = head[MAGIC.length - 1];
+        return version >= 1 && version <= VERSION;
+    }
+
+    private static void writeRecord(Output out, Output body, RecordIndex index, Task task) throws IOException {
+        index.add(task, out.position());
+        body.reset();
+        encode(body, task);
+        out.varLong(body.count);
+        out.bytes(body.buf, body.count);
+    }
+
+    static void encode(Output out, Task task) throws IOException {
+        out.next(task.getType().ordinal());
+        out.varLong(zigzag(task.getId()));
+        out.next(task.getStatus().ordinal());
+        out.string(task.getTitle());
+        out.string(task.getDescription());
+
+        LocalDateTime start = task instanceof Epic ? null : task.getStartTime();
+        Duration duration = task instanceof Epic ? null : task.getDuration();
+        int flags = 0;
+        if (start != null) {
+            flags |= HAS_START;
+            if (start.getSecond() != 0 || start.getNano() != 0) flags |= PRECISE_START;
+        }
+        if (duration != null) {
+            flags |= HAS_DURATION;
+            if (duration.toSecondsPart() != 0 || duration.getNano() != 0) flags |= PRECISE_DURATION;
+        }
+        out.next(flags);
+        if (start != null) {
+            long seconds = start.toEpochSecond(ZoneOffset.UTC);
+            if ((flags & PRECISE_START) == 0) {
+                out.varLong(zigzag(Math.floorDiv(seconds, 60)));
+            } else {
+                out.varLong(zigzag(seconds));
+                out.varLong(start.getNano());
+            }
+        }
+        if (duration != null) {
+            if ((flags & PRECISE_DURATION) == 0) {
+                out.varLong(zigzag(duration.toMinutes()));
+            } else {
+                out.varLong(zigzag(duration.getSeconds()));
+                out.varLong(duration.getNano());
+            }
+        }
+        if (task instanceof SubTask subTask) {
+            out.varLong(zigzag(subTask.getEpicId()));
+        }
+    }
+
+    static Task decode(Input in) throws IOException {
+        TaskType type = TYPES[in.next()];
+        int id = Math.toIntExact(unzigzag(in.varLong()));
+        TaskStatus status = STATUSES[in.next()];
+        String title = in.string();
+        String description = in.string();
+
+        int flags = in.next();
+        LocalDateTime start = null;
+        Duration duration = null;
+        if ((flags & HAS_START) != 0) {
+            if ((flags & PRECISE_START) == 0) {
+                start = LocalDateTime.ofEpochSecond(unzigzag(in.varLong()) * 60, 0, ZoneOffset.UTC);
+            } else {
+                long seconds = unzigzag(in.varLong());
+                start = LocalDateTime.ofEpochSecond(seconds, (int) in.varLong(), ZoneOffset.UTC);
+            }
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            if ((flags & PRECISE_DURATION) == 0) {
+                duration = Duration.ofMinutes(unzigzag(in.varLong()));
+            } else {
+                long seconds = unzigzag(in.varLong());
+                duration = Duration.ofSeconds(seconds, in.varLong());
+            }
+        }
+
+        return switch (type) {
+            case TASK -> {
+                Task t = new Task(id, title, description, status);
+                t.setStartTime(start);
+                t.setDuration(duration);
+                yield t;
+            }
+            case EPIC -> {
+                Epic e = new Epic(id, title, description);
+                e.setStatus(status);
+                yield e;
+            }
+            case SUBTASK -> {
+                int epicId = Math.toIntExact(unzigzag(in.varLong()));
+                SubTask s = new SubTask(id, title, description, status, epicId);
+                s.setStartTime(start);
+                s.setDuration(duration);
+                yield s;
+            }
+        };
+    }
+
+    /**
+     * Запись задачи для текстового журнала: тело записи в Base64.
+     */
+    static String toBase64(Task task) {
+        Output out = new Output(null, 256);
+        try {
+            encode(out, task);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(out.buf, out.count));
+    }
+
+    static Task fromBase64(String record) {
+        byte[] bytes = Base64.getDecoder().decode(record);
+        try {
+            return decode(new ArrayInput(bytes));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Неполная запись задачи", e);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Индекс записей снимка: позиция i — i-я запись в порядке (id, тип).
+     */
+    interface IndexView {
+        int size();
+
+        int id(int i);
+
+        int type(int i);
+
+        /** id эпика подзадачи или {@link #NO_EPIC}. */
+        int epicId(int i);
+
+        /** Смещение записи (её префикса длины) от начала файла. */
+        long offset(int i);
+    }
+
+    static final class RecordIndex implements IndexView {
+        private int[] ids;
+        private int[] types;
+        private int[] epicIds;
+        private long[] offsets;
+        private int size;
+
+        RecordIndex(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new int[capacity];
+            types = new int[capacity];
+            epicIds = new int[capacity];
+            offsets = new long[capacity];
+        }
+
+        void add(Task task, long offset) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                types = Arrays.copyOf(types, capacity);
+                epicIds = Arrays.copyOf(epicIds, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+            }
+            ids[size] = task.getId();
+            types[size] = task.getType().ordinal();
+            epicIds[size] = task instanceof SubTask subTask ? subTask.getEpicId() : NO_EPIC;
+            offsets[size] = offset;
+            size++;
+        }
+
+        /**
+         * Упорядочивает записи по (id, тип): ключ сортировки — id, тип и номер записи в одном long.
+         */
+        void sort() {
+            if (size >= 1 << 30) throw new IllegalStateException("Слишком много записей в снимке: " + size);
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) (ids[i] ^ Integer.MIN_VALUE) << 32) | ((long) types[i] << 30) | i;
+            }
+            Arrays.sort(keys);
+            int[] sortedIds = new int[size];
+            int[] sortedTypes = new int[size];
+            int[] sortedEpicIds = new int[size];
+            long[] sortedOffsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                int from = (int) (keys[i] & ((1 << 30) - 1));
+                sortedIds[i] = ids[from];
+                sortedTypes[i] = types[from];
+                sortedEpicIds[i] = epicIds[from];
+                sortedOffsets[i] = offsets[from];
+            }
+            ids = sortedIds;
+            types = sortedTypes;
+            epicIds = sortedEpicIds;
+            offsets = sortedOffsets;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int id(int i) {
+            return ids[i];
+        }
+
+        @Override
+        public int type(int i) {
+            return types[i];
+        }
+
+        @Override
+        public int epicId(int i) {
+            return epicIds[i];
+        }
+
+        @Override
+        public long offset(int i) {
+            return offsets[i];
+        }
+    }
+
+    /**
+     * Источник байтов для декодирования записей. Строка записывается как длина + 1 (0 — null) и байты UTF-8.
+     */
+    abstract static class Input {
+
+        int version = VERSION;
+
+        /** Следующий байт без знака; в конце данных — {@link EOFException}. */
+        abstract int next() throws IOException;
+
+        abstract String utf8(int length) throws IOException;
+
+        long varLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = next();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalStateException("Слишком длинное число varint");
+        }
+
+        String string() throws IOException {
+            long length = varLong();
+            if (length == 0) return null;
+            return utf8(Math.toIntExact(length - 1));
+        }
+    }
+
+    private static final class ArrayInput extends Input {
+        private final byte[] bytes;
+        private int pos;
+
+        private ArrayInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        int next() throws IOException {
+            if (pos == bytes.length) throw new EOFException();
+            return bytes[pos++] & 0xFF;
+        }
+
+        @Override
+        String utf8(int length) throws IOException {
+            if (bytes.length - pos < length) throw new EOFException();
+            String s = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+
+    private static final class StreamInput extends Input {
+        private final InputStream stream;
+        private final byte[] buf = new byte[64 * 1024];
+        private int pos;
+        private int limit;
+        private long consumed;
+
+        private StreamInput(InputStream stream) {
+            this.stream = stream;
+        }
+
+        long position() {
+            return consumed + pos;
+        }
+
+        @Override
+        int next() throws IOException {
+            if (pos == limit && !fill()) throw new EOFException();
+            return buf[pos++] & 0xFF;
+        }
+
+        @Override
+        String utf8(int length) throws IOException {
+            if (limit - pos >= length) {
+                String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+                pos += length;
+                return s;
+            }
+            byte[] bytes = new byte[length];
+            int copied = limit - pos;
+            System.arraycopy(buf, pos, bytes, 0, copied);
+            pos = limit;
+            while (copied < length) {
+                if (!fill()) throw new EOFException();
+                int n = Math.min(limit - pos, length - copied);
+                System.arraycopy(buf, pos, bytes, copied, n);
+                pos += n;
+                copied += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skip(long count) throws IOException {
+            while (count > 0) {
+                if (pos == limit && !fill()) throw new EOFException();
+                int n = (int) Math.min(limit - pos, count);
+                pos += n;
+                count -= n;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            consumed += limit;
+            pos = 0;
+            limit = Math.max(stream.read(buf), 0);
+            return limit > 0;
+        }
+    }
+
+    static final class Output {
+        private final OutputStream stream;
+        private byte[] buf;
+        private int count;
+        private long written;
+
+        Output(OutputStream stream, int bufferSize) {
+            this.stream = stream;
+            this.buf = new byte[bufferSize];
+        }
+
+        void next(int b) throws IOException {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        void varLong(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[count++] = (byte) value;
+        }
+
+        void string(String s) throws IOException {
+            if (s == null) {
+                varLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varLong(bytes.length + 1L);
+            bytes(bytes, bytes.length);
+        }
+
+        void bytes(byte[] bytes, int length) throws IOException {
+            if (stream != null && length > buf.length) {
+                flush();
+                stream.write(bytes, 0, length);
+                written += length;
+                return;
+            }
+            ensure(length);
+            System.arraycopy(bytes, 0, buf, count, length);
+            count += length;
+        }
+
+        void fixedInt(int value) throws IOException {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (value >>> shift);
+            }
+        }
+
+        void fixedLong(long value) throws IOException {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (value >>> shift);
+            }
+        }
+
+        long position() {
+            return written + count;
+        }
+
+        void reset() {
+            count = 0;
+        }
+
+        void flush() throws IOException {
+            if (stream != null && count > 0) {
+                stream.write(buf, 0, count);
+                written += count;
+                count = 0;
+            }
+        }
+
+        private void ensure(int extra) throws IOException {
+            if (count + extra <= buf.length) return;
+            if (stream != null) {
+                flush();
+                if (extra <= buf.length) return;
+            }
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
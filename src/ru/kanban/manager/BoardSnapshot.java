@@ -0,0 +1,61 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+
+import java.util.List;
+
+/**
+ * Неизменяемый срез доски на момент версии {@link #getVersion()}.
+ * Пока доска не менялась, менеджер возвращает один и тот же срез без копирования.
+ */
+public final class BoardSnapshot {
+    private final long version;
+    private final List<Task> tasks;
+    private final List<Epic> epics;
+    private final List<SubTask> subTasks;
+    private final List<Task> prioritizedTasks;
+
+    public BoardSnapshot(long version, List<Task> tasks, List<Epic> epics, List<SubTask> subTasks,
+                         List<Task> prioritizedTasks) {
+        this(version, tasks, epics, subTasks, prioritizedTasks, true);
+    }
+
+    private BoardSnapshot(long version, List<Task> tasks, List<Epic> epics, List<SubTask> subTasks,
+                          List<Task> prioritizedTasks, boolean copy) {
+        this.version = version;
+        this.tasks = copy ? List.copyOf(tasks) : tasks;
+        this.epics = copy ? List.copyOf(epics) : epics;
+        this.subTasks = copy ? List.copyOf(subTasks) : subTasks;
+        this.prioritizedTasks = copy ? List.copyOf(prioritizedTasks) : prioritizedTasks;
+    }
+
+    /**
+     * Срез из уже неизменяемых списков, без копирования.
+     */
+    static BoardSnapshot wrap(long version, List<Task> tasks, List<Epic> epics, List<SubTask> subTasks,
+                              List<Task> prioritizedTasks) {
+        return new BoardSnapshot(version, tasks, epics, subTasks, prioritizedTasks, false);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Epic> getEpics() {
+        return epics;
+    }
+
+    public List<SubTask> getSubTasks() {
+        return subTasks;
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedTasks;
+    }
+}
@@ -0,0 +1,777 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskField;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+import ru.kanban.util.IntHashMap;
+import ru.kanban.util.SortedChunkList;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Потокобезопасный менеджер задач.
+ * Хранилища — {@link ConcurrentSkipListMap} (обход по возрастанию id для страниц и потоков),
+ * идентификаторы выдаёт {@link AtomicInteger} и после {@link #clearAll()} не сбрасывает,
+ * чтобы создание, шедшее параллельно очистке, не получило уже выданный id.
+ * Изменения эпика и его подзадач выполняются под блокировкой полосы, выбранной по id эпика
+ * (для обычных задач — по id задачи), поэтому операции над разными эпиками идут параллельно.
+ * Проверка пересечений и изменение расписания атомарны под отдельной короткой блокировкой расписания.
+ * Индексы статусов и поиска защищены своей короткой блокировкой, которую берут и запросы к ним.
+ * Списки для чтения хранятся в неизменяемых {@link SortedChunkList}: запись, ещё держа блокировку полосы,
+ * обновляет в них свои id под короткой блокировкой срезов и публикует новый {@link BoardSnapshot}.
+ * Поэтому срез согласован, а чтение не копирует доску и не захватывает блокировок.
+ * Порядок захвата: блокировка полосы, затем блокировка расписания, индексов или срезов.
+ * Переданный {@link HistoryManager} должен быть потокобезопасным.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicInteger idCounter = new AtomicInteger();
+    private final ConcurrentSkipListMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, SubTask> subtasks = new ConcurrentSkipListMap<>();
+    private final HistoryManager historyManager;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    private final ConcurrentSkipListMap<ScheduleKey, Task> prioritizedTasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, ScheduleKey> scheduleKeys = new ConcurrentHashMap<>();
+
+    private final ReentrantLock indexLock = new ReentrantLock();
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    private final ReentrantLock viewLock = new ReentrantLock();
+    private SortedChunkList<Integer, Task> taskView = SortedChunkList.empty();
+    private SortedChunkList<Integer, Epic> epicView = SortedChunkList.empty();
+    private SortedChunkList<Integer, SubTask> subTaskView = SortedChunkList.empty();
+    private SortedChunkList<ScheduleKey, Task> scheduleView = SortedChunkList.empty();
+    private final IntHashMap<ScheduleKey> viewKeys = new IntHashMap<>();
+    private volatile BoardSnapshot snapshot = BoardSnapshot.wrap(0, taskView, epicView, subTaskView, scheduleView);
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ConcurrentTaskManager() {
+        this(new SynchronizedHistoryManager(Managers.getDefaultHistory()));
+    }
+
+    @Override
+    public Task createTask(String title, String description) {
+        if (title == null || description == null) return null;
+        Task task = new Task(idCounter.getAndIncrement(), title, description);
+        ReentrantLock lock = lockFor(task.getId());
+        lock.lock();
+        try {
+            tasks.put(task.getId(), task);
+            index(task, TaskField.ALL);
+            publish(task.getId());
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic createEpic(String title, String description) {
+        if (title == null || description == null) return null;
+        Epic epic = new Epic(idCounter.getAndIncrement(), title, description);
+        ReentrantLock lock = lockFor(epic.getId());
+        lock.lock();
+        try {
+            epics.put(epic.getId(), epic);
+            index(epic, TaskField.ALL);
+            publish(epic.getId());
+            return epic;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask createSubTask(String title, String description, int epicId) {
+        if (title == null || description == null) return null;
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                throw new IllegalArgumentException("Эпик с id " + epicId + " не существует");
+            }
+            SubTask sub = new SubTask(idCounter.getAndIncrement(), title, description, epicId);
+            subtasks.put(sub.getId(), sub);
+            epic.applySubTask(sub);
+            index(sub, TaskField.ALL);
+            indexStatus(epic);
+            publish(sub.getId());
+            return sub;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) throws ManagerSaveException {
+        if (task == null) return;
+        ReentrantLock lock = lockFor(task.getId());
+        lock.lock();
+        try {
+            schedule(task);
+            tasks.put(task.getId(), task);
+            index(task, TaskField.ALL);
+            publish(task.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        if (epic == null) return;
+        ReentrantLock lock = lockFor(epic.getId());
+        lock.lock();
+        try {
+            epics.put(epic.getId(), epic);
+            epic.recalcTimeFields(subtasks::get);
+            index(epic, TaskField.ALL);
+            publish(epic.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addSubTask(SubTask subtask) {
+        if (subtask == null) return;
+        ReentrantLock lock = lockFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalArgumentException("Эпик с id " + subtask.getEpicId() + " не существует");
+            }
+            schedule(subtask);
+            subtasks.put(subtask.getId(), subtask);
+            epic.applySubTask(subtask);
+            index(subtask, TaskField.ALL);
+            indexStatus(epic);
+            publish(subtask.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            historyManager.add(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        SubTask task = subtasks.get(id);
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return getSnapshot().getTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return getSnapshot().getEpics();
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return getSnapshot().getSubTasks();
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epics, afterId, limit);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        return page(subtasks, afterId, limit);
+    }
+
+    /**
+     * Потоки идут по спискам с пропусками и, в отличие от однопоточного менеджера,
+     * не прерываются при параллельных изменениях.
+     */
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return epics.values().stream();
+    }
+
+    @Override
+    public Stream<SubTask> streamSubTasks() {
+        return subtasks.values().stream();
+    }
+
+    private static <T> List<T> page(ConcurrentSkipListMap<Integer, T> store, int afterId, int limit) {
+        Schedule.checkLimit(limit);
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        for (T value : store.tailMap(afterId, false).values()) {
+            if (result.size() >= limit) break;
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Override
+    public List<SubTask> getSubTasksOfEpic(int epicId) {
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                return List.of();
+            }
+            return epic.getSubTaskIds().stream()
+                    .mapToObj(subtasks::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task updated) {
+        if (updated == null) return;
+        ReentrantLock lock = lockFor(updated.getId());
+        lock.lock();
+        try {
+            Task old = tasks.get(updated.getId());
+            if (old == null) return;
+            int changes = InMemoryTaskManager.changesOf(old, updated);
+            if (changes == 0) return;
+            if ((changes & TaskField.TIMING) != 0) {
+                schedule(updated);
+            }
+            tasks.put(updated.getId(), updated);
+            index(updated, changes);
+            publish(updated.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Блокировка берётся по эпику сохранённой подзадачи, как при удалении; перенос в другой эпик запрещён.
+     */
+    @Override
+    public void updateSubTask(SubTask updated) {
+        if (updated == null) return;
+        while (true) {
+            SubTask old = subtasks.get(updated.getId());
+            if (old == null) return;
+            if (old.getEpicId() != updated.getEpicId()) {
+                throw new IllegalArgumentException("Подзадачу " + updated.getId()
+                        + " нельзя перенести в эпик " + updated.getEpicId());
+            }
+            ReentrantLock lock = lockFor(old.getEpicId());
+            lock.lock();
+            try {
+                if (subtasks.get(updated.getId()) != old) continue;
+                int changes = InMemoryTaskManager.changesOf(old, updated);
+                if (changes == 0) return;
+                if ((changes & TaskField.TIMING) != 0) {
+                    schedule(updated);
+                }
+                subtasks.put(updated.getId(), updated);
+                index(updated, changes);
+
+                Epic epic = epics.get(updated.getEpicId());
+                if ((changes & (TaskField.STATUS.bit() | TaskField.TIMING)) != 0
+                        && epic != null && epic.hasSubTask(updated.getId())) {
+                    epic.applySubTask(updated);
+                    indexStatus(epic);
+                }
+                publish(updated.getId());
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (tasks.remove(id) != null) {
+                unschedule(id);
+                unindex(TaskType.TASK, id);
+                historyManager.remove(id);
+                publish(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeSubTask(int id) {
+        while (true) {
+            SubTask current = subtasks.get(id);
+            if (current == null) return;
+            ReentrantLock lock = lockFor(current.getEpicId());
+            lock.lock();
+            try {
+                if (!subtasks.remove(id, current)) continue;
+                unschedule(id);
+                unindex(TaskType.SUBTASK, id);
+                Epic epic = epics.get(current.getEpicId());
+                if (epic != null) {
+                    epic.removeSubTaskId(id);
+                    indexStatus(epic);
+                }
+                historyManager.remove(id);
+                publish(id);
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) return;
+            int[] subIds = epic.getSubTaskIds().toArray();
+            for (int subId : subIds) {
+                if (subtasks.remove(subId) != null) {
+                    unschedule(subId);
+                    unindex(TaskType.SUBTASK, subId);
+                }
+            }
+            unindex(TaskType.EPIC, id);
+            historyManager.removeAll(subIds);
+            historyManager.remove(id);
+            int[] removed = Arrays.copyOf(subIds, subIds.length + 1);
+            removed[subIds.length] = id;
+            publish(removed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        lockAll();
+        try {
+            int[] ids = tasks.keySet().stream().mapToInt(Integer::intValue).toArray();
+            for (int id : ids) {
+                unscheduleLocked(id);
+            }
+            tasks.clear();
+            indexLock.lock();
+            try {
+                statusIndex.clear(TaskType.TASK);
+                searchIndex.removeAll(ids);
+            } finally {
+                indexLock.unlock();
+            }
+            historyManager.removeAll(ids);
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        lockAll();
+        try {
+            int[] ids = subtasks.keySet().stream().mapToInt(Integer::intValue).toArray();
+            for (int id : ids) {
+                unscheduleLocked(id);
+            }
+            subtasks.clear();
+            indexLock.lock();
+            try {
+                statusIndex.clear(TaskType.SUBTASK);
+                searchIndex.removeAll(ids);
+                epics.values().forEach(epic -> {
+                    epic.clearSubTaskIds();
+                    statusIndex.update(epic);
+                });
+            } finally {
+                indexLock.unlock();
+            }
+            historyManager.removeAll(ids);
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        lockAll();
+        try {
+            tasks.clear();
+            epics.clear();
+            subtasks.clear();
+            prioritizedTasks.clear();
+            scheduleKeys.clear();
+            intervalIndex.clear();
+            indexLock.lock();
+            try {
+                statusIndex.clear();
+                searchIndex.clear();
+            } finally {
+                indexLock.unlock();
+            }
+            historyManager.clear();
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Захватывает все полосы и расписание — для операций над всей доской.
+     */
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        scheduleLock.lock();
+    }
+
+    private void unlockAll() {
+        scheduleLock.unlock();
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getSnapshot().getPrioritizedTasks();
+    }
+
+    /**
+     * Диапазонные запросы читают список с пропусками без блокировок и видят слабо согласованное состояние,
+     * как и его итераторы; только задачи, накрывающие начало диапазона, ищутся в индексе интервалов
+     * под блокировкой расписания.
+     */
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        Schedule.checkRange(from, to);
+        ScheduleKey lowest = ScheduleKey.lowest(from);
+        return Schedule.between(covering(from),
+                prioritizedTasks.subMap(lowest, ScheduleKey.lowest(to)).values());
+    }
+
+    @Override
+    public List<Task> nextTasksAfter(LocalDateTime time, int limit) {
+        Schedule.checkLimit(limit);
+        return Schedule.first(prioritizedTasks.tailMap(ScheduleKey.lowest(time)).values(), limit);
+    }
+
+    @Override
+    public LocalDateTime firstFreeSlot(Duration duration, LocalDateTime after) {
+        Schedule.checkSlot(duration, after);
+        ScheduleKey lowest = ScheduleKey.lowest(after);
+        return Schedule.firstFreeSlot(covering(after), prioritizedTasks.tailMap(lowest).values(), duration, after);
+    }
+
+    private List<Task> covering(LocalDateTime time) {
+        scheduleLock.lock();
+        try {
+            return intervalIndex.covering(time);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Override
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        operations.accept(this);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        indexLock.lock();
+        try {
+            return statusIndex.get(status);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        indexLock.lock();
+        try {
+            return statusIndex.get(type, status);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus() {
+        indexLock.lock();
+        try {
+            return statusIndex.counts();
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        indexLock.lock();
+        try {
+            return searchIndex.search(query, limit);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Обновляет индексы, зависящие от изменённых полей, и фиксирует изменения задачи.
+     */
+    private void index(Task task, int changes) {
+        indexLock.lock();
+        try {
+            if ((changes & TaskField.STATUS.bit()) != 0) {
+                statusIndex.update(task);
+            }
+            if ((changes & TaskField.TEXT) != 0) {
+                searchIndex.update(task);
+            }
+        } finally {
+            indexLock.unlock();
+        }
+        task.commitChanges();
+    }
+
+    /**
+     * Статус эпика пересчитан по подзадачам; его текст не менялся.
+     */
+    private void indexStatus(Epic epic) {
+        indexLock.lock();
+        try {
+            statusIndex.update(epic);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void unindex(TaskType type, int id) {
+        indexLock.lock();
+        try {
+            statusIndex.remove(type, id);
+            searchIndex.remove(id);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Размеры хранилищ и индексов для метрик. Число задач берётся из индекса статусов:
+     * размер {@link ConcurrentSkipListMap} считается обходом.
+     */
+    Map<String, Integer> indexSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        indexLock.lock();
+        try {
+            sizes.put("tasks", statusIndex.size(TaskType.TASK));
+            sizes.put("epics", statusIndex.size(TaskType.EPIC));
+            sizes.put("subTasks", statusIndex.size(TaskType.SUBTASK));
+            sizes.put("searchTerms", searchIndex.termCount());
+        } finally {
+            indexLock.unlock();
+        }
+        scheduleLock.lock();
+        try {
+            sizes.put("schedule", scheduleKeys.size());
+            sizes.put("intervals", intervalIndex.size());
+        } finally {
+            scheduleLock.unlock();
+        }
+        return sizes;
+    }
+
+    private void publish(int... ids) {
+        viewLock.lock();
+        try {
+            for (int id : ids) {
+                taskView = reconcile(taskView, id, tasks.get(id));
+                epicView = reconcile(epicView, id, epics.get(id));
+                subTaskView = reconcile(subTaskView, id, subtasks.get(id));
+                ScheduleKey shown = viewKeys.get(id);
+                ScheduleKey key = scheduleKeys.get(id);
+                if (shown != null && !shown.equals(key)) {
+                    scheduleView = scheduleView.without(shown);
+                    viewKeys.remove(id);
+                }
+                if (key != null) {
+                    scheduleView = scheduleView.with(key, prioritizedTasks.get(key));
+                    viewKeys.put(id, key);
+                }
+            }
+            snapshot = BoardSnapshot.wrap(snapshot.getVersion() + 1,
+                    taskView, epicView, subTaskView, scheduleView);
+        } finally {
+            viewLock.unlock();
+        }
+    }
+
+    private static <V> SortedChunkList<Integer, V> reconcile(SortedChunkList<Integer, V> view, int id, V current) {
+        return current == null ? view.without(id) : view.with(id, current);
+    }
+
+    /**
+     * Пересобирает срезы целиком — для операций над всей доской, под {@link #lockAll()}.
+     */
+    private void publishAll() {
+        viewLock.lock();
+        try {
+            taskView = SortedChunkList.ofSorted(new ArrayList<>(tasks.keySet()), new ArrayList<>(tasks.values()));
+            epicView = SortedChunkList.ofSorted(new ArrayList<>(epics.keySet()), new ArrayList<>(epics.values()));
+            subTaskView = SortedChunkList.ofSorted(new ArrayList<>(subtasks.keySet()),
+                    new ArrayList<>(subtasks.values()));
+            scheduleView = SortedChunkList.ofSorted(new ArrayList<>(prioritizedTasks.keySet()),
+                    new ArrayList<>(prioritizedTasks.values()));
+            viewKeys.clear();
+            scheduleKeys.forEach(viewKeys::put);
+            snapshot = BoardSnapshot.wrap(snapshot.getVersion() + 1,
+                    taskView, epicView, subTaskView, scheduleView);
+        } finally {
+            viewLock.unlock();
+        }
+    }
+
+    private void schedule(Task t) {
+        scheduleLock.lock();
+        try {
+            if (intervalIndex.overlapsAny(t.getStartTime(), t.getEndTime(), t.getId())) {
+                throw new IllegalArgumentException("Временной конфликт задачи id=" + t.getId());
+            }
+            unscheduleLocked(t.getId());
+            LocalDateTime start = t.getStartTime();
+            if (start != null) {
+                ScheduleKey key = new ScheduleKey(start, t.getId());
+                scheduleKeys.put(t.getId(), key);
+                prioritizedTasks.put(key, t);
+                intervalIndex.add(t);
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void unschedule(int id) {
+        scheduleLock.lock();
+        try {
+            unscheduleLocked(id);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void unscheduleLocked(int id) {
+        ScheduleKey key = scheduleKeys.remove(id);
+        if (key != null) {
+            prioritizedTasks.remove(key);
+        }
+        intervalIndex.remove(id);
+    }
+
+    private ReentrantLock lockFor(int id) {
+        int h = id * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private record ScheduleKey(LocalDateTime start, int id) implements Comparable<ScheduleKey> {
+        private static ScheduleKey lowest(LocalDateTime start) {
+            if (start == null) {
+                throw new IllegalArgumentException("Время не задано");
+            }
+            return new ScheduleKey(start, Integer.MIN_VALUE);
+        }
+
+        @Override
+        public int compareTo(ScheduleKey other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.*;
+import ru.kanban.util.CsvReader;
+import ru.kanban.util.CsvWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Снимок в CSV: заголовок, строка поколения, строки задач, пустая строка и строка истории.
+ * Поля с запятыми, кавычками и переводами строк берутся в кавычки по RFC 4180.
+ * Чтение и запись идут через {@link CsvReader} и {@link CsvWriter}: строки создаются только для названий и описаний.
+ * Большие снимки разбираются по кускам параллельно, см. {@link #readParallel}.
+ */
+class CsvSnapshotFormat implements SnapshotFormat {
+
+    private static final String[] HEADER =
+            {"id", "type", "title", "status", "description", "startTime", "durationInMinutes", "epicId"};
+    private static final String GENERATION = "generation";
+    private static final String HISTORY = "history";
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private static final int PARALLEL_THRESHOLD = 4 << 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    CsvSnapshotFormat() {
+        this(PARALLEL_THRESHOLD, CHUNK_SIZE);
+    }
+
+    /**
+     * @param parallelThreshold размер файла в байтах, начиная с которого он разбирается параллельно
+     * @param chunkSize         наименьший размер куска строк задач
+     */
+    CsvSnapshotFormat(int parallelThreshold, int chunkSize) {
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    @Override
+    public void write(Path file, long generation, BoardSnapshot board, int[] history) throws IOException {
+        try (CsvWriter out = new CsvWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            for (String column : HEADER) {
+                out.field(column);
+            }
+            out.endRecord();
+            out.field(GENERATION).field(generation).endRecord();
+
+            for (Task task : board.getTasks()) {
+                writeTask(out, task);
+                out.endRecord();
+            }
+            for (Epic epic : board.getEpics()) {
+                writeTask(out, epic);
+                out.endRecord();
+            }
+            for (SubTask subTask : board.getSubTasks()) {
+                writeTask(out, subTask);
+                out.endRecord();
+            }
+
+            out.endRecord();
+            out.field(HISTORY);
+            for (int id : history) {
+                out.field(id);
+            }
+            out.endRecord();
+        }
+    }
+
+    /**
+     * Вторая строка — поколение; в снимках старого формата на её месте пустая строка или сразу задача.
+     */
+    @Override
+    public long read(Path file, Consumer<Task> sink, IntConsumer history) throws IOException {
+        long size = Files.size(file);
+        if (size >= parallelThreshold && size < Integer.MAX_VALUE - 8) {
+            Long generation = readParallel(file, sink, history);
+            if (generation != null) return generation;
+        }
+        return readSequential(file, sink, history);
+    }
+
+    private long readSequential(Path file, Consumer<Task> sink, IntConsumer history) throws IOException {
+        try (CsvReader in = open(file)) {
+            if (!next(in) || !next(in)) return 0;
+            long generation = 0;
+            boolean hasRecord = true;
+            if (in.fieldEquals(0, GENERATION)) {
+                generation = parseGeneration(in);
+                hasRecord = next(in);
+            } else if (in.isBlankRecord()) {
+                hasRecord = next(in);
+            }
+            while (hasRecord && !in.isBlankRecord()) {
+                sink.accept(parseTask(in));
+                hasRecord = next(in);
+            }
+            if (hasRecord && next(in)) {
+                readHistory(in, history);
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Параллельное чтение снимка в том виде, в каком его пишет {@link #write}. Строки задач режутся на куски
+     * по переводам строк вне кавычек (чётность кавычек до начала куска считается заранее), куски разбираются
+     * в {@link ForkJoinPool#commonPool()}, а задачи отдаются в {@code sink} в порядке файла.
+     * Если файл устроен иначе (старый формат, пустая строка среди задач) или в каком-то куске ошибка,
+     * возвращает {@code null}, ничего не передав в {@code sink}: такой файл читает последовательный путь,
+     * поэтому и ошибка сообщается о той же первой плохой строке.
+     */
+    private Long readParallel(Path file, Consumer<Task> sink, IntConsumer history) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        int generationStart = nextLine(data, 0);
+        if (generationStart < 0 || !startsWith(data, generationStart, GENERATION + ",")) return null;
+        int tasksStart = nextLine(data, generationStart);
+        int historyStart = lastLine(data);
+        if (tasksStart < 0 || historyStart - 1 < tasksStart || data[historyStart - 1] != '\n'
+                || data[historyStart - 2] != '\n' || !startsWith(data, historyStart, HISTORY)) {
+            return null;
+        }
+        int tasksEnd = historyStart - 1;
+
+        int[] bounds = split(data, tasksStart, tasksEnd);
+        List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            parts.add(ForkJoinTask.adapt(() -> parseChunk(data, from, to)));
+        }
+        ForkJoinTask.invokeAll(parts);
+        for (ForkJoinTask<List<Task>> part : parts) {
+            if (part.join() == null) return null;
+        }
+
+        long generation;
+        try (CsvReader in = slice(data, generationStart, tasksStart)) {
+            next(in);
+            generation = parseGeneration(in);
+        }
+        for (ForkJoinTask<List<Task>> part : parts) {
+            part.join().forEach(sink);
+        }
+        try (CsvReader in = slice(data, historyStart, data.length)) {
+            next(in);
+            readHistory(in, history);
+        }
+        return generation;
+    }
+
+    /**
+     * Границы кусков в {@code [from, to)}: каждая стоит сразу за переводом строки вне кавычек.
+     */
+    private int[] split(byte[] data, int from, int to) {
+        int length = to - from;
+        int chunks = Math.max(1, Math.min(length / chunkSize, ForkJoinPool.getCommonPoolParallelism() * 4));
+        int[] starts = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            starts[i] = from + (int) ((long) length * i / chunks);
+        }
+        List<ForkJoinTask<Integer>> counts = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int start = starts[i];
+            int end = starts[i + 1];
+            counts.add(ForkJoinTask.adapt(() -> countQuotes(data, start, end)));
+        }
+        ForkJoinTask.invokeAll(counts);
+
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = from;
+        bounds[chunks] = to;
+        boolean inQuotes = false;
+        for (int i = 1; i < chunks; i++) {
+            inQuotes ^= (counts.get(i - 1).join() & 1) == 1;
+            bounds[i] = recordStart(data, starts[i], to, inQuotes);
+        }
+        return bounds;
+    }
+
+    private static int countQuotes(byte[] data, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] == '"') count++;
+        }
+        return count;
+    }
+
+    private static int recordStart(byte[] data, int from, int to, boolean inQuotes) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == '"') {
+                inQuotes = !inQuotes;
+            } else if (data[i] == '\n' && !inQuotes) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Задачи куска или {@code null}, если кусок не разобрался или в нём пустая строка.
+     */
+    private static List<Task> parseChunk(byte[] data, int from, int to) {
+        List<Task> tasks = new ArrayList<>();
+        try (CsvReader in = slice(data, from, to)) {
+            while (in.nextRecord()) {
+                if (in.isBlankRecord()) return null;
+                tasks.add(readTask(in));
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return tasks;
+    }
+
+    private static CsvReader slice(byte[] data, int from, int to) {
+        return new CsvReader(new InputStreamReader(
+                new ByteArrayInputStream(data, from, to - from), StandardCharsets.UTF_8));
+    }
+
+    private static int nextLine(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') return i + 1;
+        }
+        return -1;
+    }
+
+    private static int lastLine(byte[] data) {
+        int end = data.length > 0 && data[data.length - 1] == '\n' ? data.length - 1 : data.length;
+        for (int i = end - 1; i >= 0; i--) {
+            if (data[i] == '\n') return i + 1;
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(byte[] data, int from, String prefix) {
+        if (from + prefix.length() > data.length) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[from + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public long readGeneration(Path file) throws IOException {
+        try (CsvReader in = open(file)) {
+            if (!next(in) || !next(in) || !in.fieldEquals(0, GENERATION)) return 0;
+            return parseGeneration(in);
+        }
+    }
+
+    private static CsvReader open(Path file) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    private static boolean next(CsvReader in) throws IOException {
+        try {
+            return in.nextRecord();
+        } catch (IllegalArgumentException e) {
+            throw new ManagerSaveException("Ошибка при разборе строки: " + in.recordText(), e);
+        }
+    }
+
+    private static long parseGeneration(CsvReader in) {
+        try {
+            return in.getLong(1);
+        } catch (RuntimeException e) {
+            throw new ManagerSaveException("Ошибка при разборе строки: " + in.recordText(), e);
+        }
+    }
+
+    private static void readHistory(CsvReader in, IntConsumer history) {
+        if (!in.fieldEquals(0, HISTORY)) return;
+        try {
+            for (int i = 1; i < in.size(); i++) {
+                if (!in.isEmpty(i)) {
+                    history.accept(in.getInt(i));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new ManagerSaveException("Ошибка при разборе строки: " + in.recordText(), e);
+        }
+    }
+
+    private static Task parseTask(CsvReader in) {
+        try {
+            return readTask(in);
+        } catch (Exception parseException) {
+            throw new ManagerSaveException("Ошибка при разборе строки: " + in.recordText(), parseException);
+        }
+    }
+
+    private static void writeTask(CsvWriter out, Task task) throws IOException {
+        out.field(task.getId())
+                .field(task.getType().name())
+                .field(task.getTitle())
+                .field(task.getStatus().name())
+                .field(task.getDescription())
+                .field(task.getStartTime());
+        if (task.getDuration() == null) {
+            out.emptyField();
+        } else {
+            out.field(task.getDuration().toMinutes());
+        }
+        if (task instanceof SubTask subTask) {
+            out.field(subTask.getEpicId());
+        } else {
+            out.emptyField();
+        }
+    }
+
+    private static Task readTask(CsvReader in) {
+        int id = in.getInt(0);
+        TaskType type = in.getEnum(1, TYPES);
+        String title = in.getString(2);
+        TaskStatus status = in.getEnum(3, STATUSES);
+        String description = in.getString(4);
+
+        LocalDateTime start = in.size() > 5 && !in.isBlank(5) ? in.getDateTime(5) : null;
+        Duration duration = in.size() > 6 && !in.isBlank(6) ? Duration.ofMinutes(in.getLong(6)) : null;
+
+        return switch (type) {
+            case TASK -> {
+                Task t = new Task(id, title, description, status);
+                t.setStartTime(start);
+                t.setDuration(duration);
+                yield t;
+            }
+            case EPIC -> {
+                Epic e = new Epic(id, title, description);
+                e.setStatus(status);
+                yield e;
+            }
+            case SUBTASK -> {
+                SubTask s = new SubTask(id, title, description, status, in.getInt(7));
+                s.setStartTime(start);
+                s.setDuration(duration);
+                yield s;
+            }
+        };
+    }
+
+    /**
+     * Одна строка задачи для журнала; переводы строк внутри полей остаются в кавычках.
+     */
+    static String toLine(Task task) {
+        StringWriter line = new StringWriter(96);
+        try {
+            CsvWriter out = new CsvWriter(line, 256);
+            writeTask(out, task);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    static Task fromLine(String line) {
+        CsvReader in = new CsvReader(new StringReader(line), line.length() + 1);
+        try {
+            if (!in.nextRecord()) {
+                throw new IllegalArgumentException("Пустая строка задачи");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return readTask(in);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.kanban.manager;
+
+/**
+ * Когда изменения {@link FileBackedTaskManager} в режиме отложенной записи доходят до диска.
+ */
+public enum Durability {
+    /** Фоновый поток пишет пачками, fsync — только при {@link FileBackedTaskManager#flush()} и закрытии. */
+    ASYNC,
+    /** Как ASYNC, но каждая пачка завершается fsync, так что теряется не больше чем за {@code maxDelay}. */
+    FLUSH_ON_INTERVAL,
+    /** Изменение возвращает управление только после fsync; одновременные изменения делят один fsync. */
+    SYNC
+}
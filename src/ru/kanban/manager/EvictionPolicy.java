@@ -0,0 +1,13 @@
+package ru.kanban.manager;
+
+/**
+ * Какую запись {@link InMemoryHistoryManager} вытесняет, когда история заполнена.
+ */
+public enum EvictionPolicy {
+    /** Дольше всех не просматривавшуюся. */
+    LRU,
+    /** Реже всех просматривавшуюся; при равенстве — дольше всех не просматривавшуюся. */
+    LFU,
+    /** Как LRU, но вдобавок записи старше окна времени удаляются сами. */
+    TIME_WINDOW
+}
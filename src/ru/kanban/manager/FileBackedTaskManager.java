@@ -1,323 +1,654 @@
 package ru.kanban.manager;
 
 import ru.kanban.task.*;
+import ru.kanban.util.RecentIntSet;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+/**
+ * Менеджер, сохраняющий доску в снимок ({@link SnapshotFormat}) и журнал изменений ({@link TaskJournal}) рядом с ним.
+ * Снимок переписывается только при сжатии журнала, когда записей в нём становится больше, чем задач на доске.
+ * Просмотры копятся, по последнему на задачу, и уходят в журнал перед следующей записью, при {@link #flush()},
+ * {@link #close()}, а также когда их наберётся {@value #MAX_PENDING_VIEWS} или старейшему исполнится секунда.
+ * При отложенной записи их копит фоновый поток и пишет не позже {@link WriteBehind#maxDelay()};
+ * без неё потока нет, и возраст проверяется при следующем просмотре.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final int SYNC_EVERY_RECORDS = 64;
+    static final int MAX_PENDING_VIEWS = 64;
+    private static final long MAX_VIEW_DELAY_NANOS = Duration.ofSeconds(1).toNanos();
 
     private final Path filePath;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private long generation;
+    private boolean attached;
+    private final List<String> pendingRecords = new ArrayList<>();
+    private final RecentIntSet pendingViews = new RecentIntSet();
+    private long pendingViewsSince;
+    private boolean snapshotPending;
+    private boolean loading;
+    private volatile long snapshotBytes;
+    private volatile WriteListener writeListener;
+    private final WriteBehindWriter writer;
+    private long journalRecords;
+
+    /**
+     * Получает длительность и объём каждой записи на диск.
+     * В режиме отложенной записи вызывается из фонового потока.
+     */
+    public interface WriteListener {
+        void snapshotWritten(long nanos, long bytes);
+
+        void journalWritten(long nanos, long bytes);
+    }
 
     public FileBackedTaskManager(Path filePath) {
+        this(filePath, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(Path filePath, SnapshotFormat format) {
+        this(filePath, format, null);
+    }
+
+    /**
+     * @param writeBehind настройки отложенной записи или {@code null}, чтобы писать в вызывающем потоке
+     */
+    public FileBackedTaskManager(Path filePath, SnapshotFormat format, WriteBehind writeBehind) {
         super();
         this.filePath = filePath;
+        this.format = format;
+        this.journal = new TaskJournal(filePath.resolveSibling(filePath.getFileName() + ".journal"),
+                SYNC_EVERY_RECORDS);
+        this.generation = readGeneration(filePath);
+        this.writer = writeBehind == null ? null
+                : new WriteBehindWriter(new JournalTarget(), writeBehind, filePath.toString());
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Байты, записанные этим экземпляром в снимки и журнал.
+     */
+    public long getBytesWritten() {
+        return snapshotBytes + journal.getBytesWritten();
     }
 
+    /**
+     * Записывает снимок и начинает новый журнал. В режиме отложенной записи ждёт, пока снимок окажется на диске.
+     */
     protected void save() throws ManagerSaveException {
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            writer.write("id,type,title,status,description,startTime,durationInMinutes,epicId\n");
-            writer.newLine();
+        if (writer != null) {
+            enqueueSnapshot();
+            writer.flush();
+            return;
+        }
+        long next = generation + 1;
+        try {
+            writeSnapshot(next, getSnapshot(), historyIds());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении в файл: " + filePath, e);
+        }
+        generation = next;
+        attached = true;
+        pendingViews.clear();
+    }
 
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task));
-                writer.newLine();
-            }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic));
-                writer.newLine();
+    private void writeSnapshot(long next, BoardSnapshot board, int[] history) throws IOException {
+        long started = System.nanoTime();
+        Path tmp = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        format.write(tmp, next, board, history);
+        long bytes = Files.size(tmp);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        replaceFile(tmp, filePath);
+        journal.reset(next);
+        snapshotBytes += bytes;
+        WriteListener listener = writeListener;
+        if (listener != null) {
+            listener.snapshotWritten(System.nanoTime() - started, bytes);
+        }
+    }
+
+    private int[] historyIds() {
+        return historyManager.getHistory().stream().mapToInt(Task::getId).toArray();
+    }
+
+    /**
+     * Снимок сразу или, при отложенной записи, в очередь фонового потока.
+     */
+    private void snapshot() {
+        if (writer != null) {
+            enqueueSnapshot();
+        } else {
+            save();
+        }
+    }
+
+    private void enqueueSnapshot() {
+        writer.snapshot(++generation, detachedSnapshot(), historyIds());
+        journalRecords = 0;
+        attached = true;
+        pendingViews.clear();
+    }
+
+    /**
+     * Срез доски из копий задач: фоновый поток пишет его, пока вызывающий продолжает менять оригиналы.
+     * Копируются только сохраняемые поля, поэтому копия эпика — без подзадач и расчётного времени.
+     */
+    private BoardSnapshot detachedSnapshot() {
+        List<Task> taskCopies = new ArrayList<>(tasks.size());
+        tasks.orderedIterator().forEachRemaining(task -> taskCopies.add(detached(task)));
+        List<Epic> epicCopies = new ArrayList<>(epics.size());
+        epics.orderedIterator().forEachRemaining(epic -> epicCopies.add((Epic) detached(epic)));
+        List<SubTask> subTaskCopies = new ArrayList<>(subtasks.size());
+        subtasks.orderedIterator().forEachRemaining(subTask -> subTaskCopies.add((SubTask) detached(subTask)));
+        return new BoardSnapshot(getVersion(), taskCopies, epicCopies, subTaskCopies, List.of());
+    }
+
+    private static Task detached(Task task) {
+        Task copy = switch (task.getType()) {
+            case TASK -> new Task(task.getId(), task.getTitle(), task.getDescription());
+            case EPIC -> new Epic(task.getId(), task.getTitle(), task.getDescription());
+            case SUBTASK -> new SubTask(task.getId(), task.getTitle(), task.getDescription(),
+                    ((SubTask) task).getEpicId());
+        };
+        copy.setStatus(task.getStatus());
+        copy.setStartTime(task.getStartTime());
+        copy.setDuration(task.getDuration());
+        return copy;
+    }
+
+    /**
+     * Дожидается, пока все изменения окажутся на диске.
+     */
+    public void flush() throws ManagerSaveException {
+        persistViews();
+        if (writer != null) {
+            writer.flush();
+            return;
+        }
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи журнала: " + journal.getPath(), e);
+        }
+    }
+
+    @Override
+    public void close() throws ManagerSaveException {
+        try {
+            persistViews();
+            if (writer != null) {
+                writer.close();
             }
-            for (SubTask subTask : getAllSubTasks()) {
-                writer.write(toString(subTask));
-                writer.newLine();
+        } finally {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при закрытии журнала: " + journal.getPath(), e);
             }
+        }
+    }
+
+    private final class JournalTarget implements WriteBehindWriter.Target {
+        @Override
+        public void writeSnapshot(long generation, BoardSnapshot board, int[] history) throws IOException {
+            FileBackedTaskManager.this.writeSnapshot(generation, board, history);
+        }
 
+        @Override
+        public void append(List<String> records) throws IOException {
+            long started = System.nanoTime();
+            long before = journal.getBytesWritten();
+            journal.appendAll(records, false);
+            journalWritten(started, before);
+        }
+
+        @Override
+        public void sync() throws IOException {
+            journal.sync();
+        }
+    }
+
+    @Override
+    protected void completeBatch() {
+        super.completeBatch();
+        List<String> records = new ArrayList<>(pendingRecords);
+        if (!snapshotPending) {
+            records.addAll(takeViews());
+        }
+        boolean snapshot = snapshotPending || !attached
+                || journalRecordCount() + records.size() > compactionThreshold();
+        pendingRecords.clear();
+        snapshotPending = false;
+        if (snapshot) {
+            snapshot();
+            return;
+        }
+        if (writer != null) {
+            writer.appendAll(records);
+            journalRecords += records.size();
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            long before = journal.getBytesWritten();
+            journal.appendAll(records);
+            journalWritten(started, before);
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении в файл: " + filePath, e);
+            throw new ManagerSaveException("Ошибка при записи журнала: " + journal.getPath(), e);
+        }
+    }
+
+    private void persist(String record) throws ManagerSaveException {
+        List<String> records = takeViews();
+        records.add(record);
+        persist(records);
+    }
+
+    private void persistViews() throws ManagerSaveException {
+        if (!pendingViews.isEmpty()) {
+            persist(takeViews());
+        }
+    }
+
+    private List<String> takeViews() {
+        List<String> records = new ArrayList<>(pendingViews.size() + 1);
+        pendingViews.forEach(id -> records.add(TaskJournal.viewRecord(id)));
+        pendingViews.clear();
+        return records;
+    }
+
+    private void persist(List<String> records) throws ManagerSaveException {
+        if (inBatch()) {
+            if (!snapshotPending) {
+                pendingRecords.addAll(records);
+                if (pendingRecords.size() > compactionThreshold()) {
+                    pendingRecords.clear();
+                    snapshotPending = true;
+                }
+            }
+            return;
+        }
+        if (!attached) {
+            snapshot();
+            return;
+        }
+        if (writer != null) {
+            writer.appendAll(records);
+            journalRecords += records.size();
+            compactIfNeeded();
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            long before = journal.getBytesWritten();
+            for (String record : records) {
+                journal.append(record);
+            }
+            journalWritten(started, before);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи журнала: " + journal.getPath(), e);
+        }
+        compactIfNeeded();
+    }
+
+    private void journalWritten(long started, long bytesBefore) {
+        WriteListener listener = writeListener;
+        if (listener != null) {
+            listener.journalWritten(System.nanoTime() - started, journal.getBytesWritten() - bytesBefore);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (journalRecordCount() > compactionThreshold()) {
+            snapshot();
+        }
+    }
+
+    private long journalRecordCount() {
+        return writer != null ? journalRecords : journal.getRecordCount();
+    }
+
+    private int compactionThreshold() {
+        return Math.max(MIN_COMPACTION_RECORDS, tasks.size() + epics.size() + subtasks.size());
+    }
+
+    private void persistPut(Task task) {
+        persist(format == SnapshotFormat.BINARY
+                ? "PUTB," + BinarySnapshotFormat.toBase64(task)
+                : "PUT," + CsvSnapshotFormat.toLine(task));
+    }
+
+    private void viewed(int id) {
+        if (writer != null && attached && !inBatch()) {
+            writer.view(id);
+            return;
+        }
+        if (pendingViews.isEmpty()) {
+            pendingViewsSince = System.nanoTime();
+        }
+        pendingViews.add(id);
+        if (!inBatch() && (pendingViews.size() >= MAX_PENDING_VIEWS
+                || System.nanoTime() - pendingViewsSince >= MAX_VIEW_DELAY_NANOS)) {
+            persistViews();
         }
     }
 
-    private String toString(Task task) {
-        String start = task.getStartTime() == null ? "" : task.getStartTime().toString();
-        String dur   = task.getDuration() == null ? "" : Long.toString(task.getDuration().toMinutes());
+    private void persistRemove(int id) {
+        persist("DEL," + id);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append(task.getId()).append(",")
-                .append(task.getType()).append(",")
-                .append(task.getTitle()).append(",")
-                .append(task.getStatus()).append(",")
-                .append(task.getDescription()).append(",")
-                .append(start).append(",")
-                .append(dur).append(",");
+    private static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-        if (task instanceof SubTask) {
-            sb.append(((SubTask) task).getEpicId());
+    private static long readGeneration(Path filePath) {
+        if (!Files.exists(filePath)) return 0;
+        try {
+            return SnapshotFormat.detect(filePath).readGeneration(filePath);
+        } catch (IOException | RuntimeException e) {
+            return 0;
         }
-        return sb.toString();
     }
 
+    /**
+     * Загружает менеджер из снимка; формат определяется по содержимому файла и сохраняется для новых снимков.
+     */
     public static FileBackedTaskManager loadFromFile(Path filePath) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(filePath);
-        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            String line;
-            reader.readLine();
-            reader.readLine();
-            while ((line = reader.readLine()) != null && !line.isBlank()) {
+        return loadFromFile(filePath, null);
+    }
+
+    /**
+     * Загружает менеджер из снимка и дальше пишет изменения в режиме {@code writeBehind}.
+     */
+    public static FileBackedTaskManager loadFromFile(Path filePath, WriteBehind writeBehind) {
+        SnapshotFormat format;
+        try {
+            format = SnapshotFormat.detect(filePath);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке файла: " + filePath, e);
+        }
+        FileBackedTaskManager manager = new FileBackedTaskManager(filePath, format, writeBehind);
+        manager.loading = true;
+        List<Integer> history = new ArrayList<>();
+        try {
+            manager.generation = format.read(filePath, manager::putLoaded, history::add);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке файла: " + filePath, e);
+        }
+        manager.linkLoadedSubTasks();
+        history.forEach(manager::restoreView);
+
+        try {
+            for (String record : manager.journal.open(manager.generation)) {
                 try {
-                    Task task = manager.fromString(line);
-                    manager.addWithoutSaving(task);
+                    manager.replay(record);
                 } catch (Exception parseException) {
-                    throw new ManagerSaveException("Ошибка при разборе строки: " + line, parseException);
+                    throw new ManagerSaveException("Ошибка при разборе строки журнала: " + record, parseException);
                 }
             }
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при загрузке файла: " + filePath, e);
+            throw new ManagerSaveException("Ошибка при загрузке журнала: " + manager.journal.getPath(), e);
         }
+        manager.journalRecords = manager.journal.getRecordCount();
+        manager.attached = true;
+        manager.loading = false;
 
-        for (Epic e : manager.getAllEpics()) {
-            e.recalcTimeFields(manager.subtasks);
-        }
+        manager.epics.values().forEach(manager::updateEpicStatus);
 
-        manager.prioritizedTasks.clear();
-        manager.tasks.values().forEach(manager::indexForPriority);
-        manager.subtasks.values().forEach(manager::indexForPriority);
+        manager.rebuildIndexes();
 
         return manager;
     }
 
-    private void addWithoutSaving(Task task) {
-        if (task == null) return;
+    @Override
+    protected void updateEpicStatus(Epic epic) {
+        if (!loading) {
+            super.updateEpicStatus(epic);
+        }
+    }
 
-        int id = task.getId();
-        if (id > idCounter) {
-            idCounter = id + 1;
+    private void replay(String record) {
+        int comma = record.indexOf(',');
+        String op = comma < 0 ? record : record.substring(0, comma);
+        switch (op) {
+            case "PUT" -> addWithoutSaving(CsvSnapshotFormat.fromLine(record.substring(comma + 1)));
+            case "PUTB" -> addWithoutSaving(BinarySnapshotFormat.fromBase64(record.substring(comma + 1)));
+            case "DEL" -> removeWithoutSaving(Integer.parseInt(record.substring(comma + 1)));
+            case TaskJournal.VIEW -> restoreView(Integer.parseInt(record.substring(comma + 1)));
+            case "CLEAR" -> super.clearAll();
+            case "CLEAR_TASKS" -> super.removeAllTasks();
+            case "CLEAR_SUBTASKS" -> super.removeAllSubTasks();
+            default -> throw new IllegalArgumentException("Неизвестная запись журнала: " + op);
+        }
+    }
+
+    private void restoreView(int id) {
+        Task task = tasks.get(id);
+        if (task == null) task = epics.get(id);
+        if (task == null) task = subtasks.get(id);
+        if (task != null) {
+            historyManager.add(task);
         }
+    }
+
+    private Task putLoaded(Task task) {
+        int id = task.getId();
+        idCounter = Math.max(idCounter, id + 1);
 
-        switch (task.getType()) {
+        return switch (task.getType()) {
             case TASK -> tasks.put(id, task);
             case EPIC -> epics.put(id, (Epic) task);
-            case SUBTASK -> {
-                SubTask subtask = (SubTask) task;
-                subtasks.put(id, subtask);
-                Epic epic = epics.get(subtask.getEpicId());
-                if (epic != null) {
-                    epic.addSubTaskId(id);
-                    updateEpicStatus(epic);
-                }
-            }
-            default -> throw new IllegalArgumentException(
-                    "Неизвестный тип задачи: " + task.getType()
-            );
-        }
-    }
-
-    private Task fromString(String line) {
-        String[] parts = line.split(",", -1);
-        int id = Integer.parseInt(parts[0]);
-        TaskType type = TaskType.valueOf(parts[1]);
-        String title = parts[2];
-        TaskStatus status = TaskStatus.valueOf(parts[3]);
-        String description = parts[4];
-
-        String startStr = parts.length > 5 ? parts[5] : "";
-        String durStr = parts.length > 6 ? parts[6] : "";
-        LocalDateTime start = startStr.isBlank() ? null : LocalDateTime.parse(startStr);
-        Duration duration = durStr.isBlank() ? null : Duration.ofMinutes(Long.parseLong(durStr));
-
-        return switch (type) {
-            case TASK -> {
-                Task t = new Task(id, title, description, status);
-                t.setStartTime(start);
-                t.setDuration(duration);
-                yield t;
-            }
-            case EPIC -> {
-                Epic e = new Epic(id, title, description);
-                e.setStatus(status);
-                yield e;
+            case SUBTASK -> subtasks.put(id, (SubTask) task);
+        };
+    }
+
+    private void linkLoadedSubTasks() {
+        for (SubTask subtask : subtasks.values()) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubTaskId(subtask.getId());
             }
-            case SUBTASK -> {
-                int epicId = Integer.parseInt(parts[7]);
-                SubTask s = new SubTask(id, title, description, status, epicId);
-                s.setStartTime(start);
-                s.setDuration(duration);
-                yield s;
+        }
+    }
+
+    private void addWithoutSaving(Task task) {
+        Task previous = putLoaded(task);
+        if (task instanceof Epic epic && previous instanceof Epic old && old != epic) {
+            old.getSubTaskIds().forEach(epic::addSubTaskId);
+        }
+        if (!(task instanceof SubTask subtask)) return;
+
+        int id = subtask.getId();
+        if (previous instanceof SubTask old && old.getEpicId() == subtask.getEpicId()) return;
+        if (previous instanceof SubTask old) {
+            Epic oldEpic = epics.get(old.getEpicId());
+            if (oldEpic != null) {
+                oldEpic.removeSubTaskId(id);
             }
-            default -> throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
-        };
+        }
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.addSubTaskId(id);
+        }
+    }
+
+    private void removeWithoutSaving(int id) {
+        if (tasks.containsKey(id)) {
+            super.removeTask(id);
+        } else if (subtasks.containsKey(id)) {
+            super.removeSubTask(id);
+        } else {
+            super.removeEpic(id);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = super.getTask(id);
+        if (task != null) {
+            viewed(id);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = super.getEpic(id);
+        if (epic != null) {
+            viewed(id);
+        }
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        SubTask subTask = super.getSubTask(id);
+        if (subTask != null) {
+            viewed(id);
+        }
+        return subTask;
     }
 
     @Override
     public Task createTask(String title, String description) {
-        if (title == null || description == null) return null;
-        Task task = new Task(idCounter++, title, description);
-        validateNoOverlap(task);
-        tasks.put(task.getId(), task);
-        indexForPriority(task);
-        save();
+        Task task = super.createTask(title, description);
+        if (task != null) {
+            persistPut(task);
+        }
         return task;
     }
 
     @Override
     public Epic createEpic(String title, String description) {
-        if (title == null || description == null) return null;
-        Epic epic = new Epic(idCounter++, title, description);
-        epics.put(epic.getId(), epic);
-        updateEpicStatus(epic);
-        save();
+        Epic epic = super.createEpic(title, description);
+        if (epic != null) {
+            persistPut(epic);
+        }
         return epic;
     }
 
     @Override
     public SubTask createSubTask(String title, String description, int epicId) {
-        if (title == null || description == null) return null;
-        Epic epic = epics.get(epicId);
-        if (epic == null) throw new IllegalArgumentException("Эпик с id " + epicId + " не существует");
-
-        SubTask subTask = new SubTask(idCounter++, title, description, epicId);
-        validateNoOverlap(subTask);
-        subtasks.put(subTask.getId(), subTask);
-        epic.addSubTaskId(subTask.getId());
-        indexForPriority(subTask);
-        updateEpicStatus(epic);
-        save();
+        SubTask subTask = super.createSubTask(title, description, epicId);
+        if (subTask != null) {
+            persistPut(subTask);
+        }
         return subTask;
     }
 
     @Override
     public void addTask(Task task) throws ManagerSaveException {
         if (task == null) return;
-        validateNoOverlap(task);
-        tasks.put(task.getId(), task);
-        indexForPriority(task);
-        save();
+        super.addTask(task);
+        persistPut(task);
     }
 
     @Override
     public void addSubTask(SubTask subtask) {
         if (subtask == null) return;
-        Epic epic = epics.get(subtask.getEpicId());
-        if (epic == null) {
-            throw new IllegalArgumentException("Эпик с id " + subtask.getEpicId() + " не существует");
-        }
-        validateNoOverlap(subtask);
-        subtasks.put(subtask.getId(), subtask);
-        epic.addSubTaskId(subtask.getId());
-        indexForPriority(subtask);
-        updateEpicStatus(epic);
-        save();
+        super.addSubTask(subtask);
+        persistPut(subtask);
     }
 
     @Override
     public void addEpic(Epic epic) {
-        if (epic != null) {
-            epics.put(epic.getId(), epic);
-            updateEpicStatus(epic);
-            save();
-        }
+        if (epic == null) return;
+        super.addEpic(epic);
+        persistPut(epic);
     }
 
+    /**
+     * Обновление без изменённых полей в журнал не пишется.
+     */
     @Override
     public void updateTask(Task updated) {
         if (updated == null) return;
         Task old = tasks.get(updated.getId());
-        if (old == null) return;
-
-        deindexForPriority(old);
-        validateNoOverlap(updated);
-        tasks.put(updated.getId(), updated);
-        indexForPriority(updated);
-        save();
+        if (old == null || changesOf(old, updated) == 0) return;
+        super.updateTask(updated);
+        if (tasks.get(updated.getId()) == updated) {
+            persistPut(updated);
+        }
     }
 
     @Override
     public void updateSubTask(SubTask updated) {
         if (updated == null) return;
         SubTask old = subtasks.get(updated.getId());
-        if (old == null) return;
-
-        deindexForPriority(old);
-        validateNoOverlap(updated);
-        subtasks.put(updated.getId(), updated);
-        indexForPriority(updated);
-
-        Epic epic = epics.get(updated.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
+        if (old == null || changesOf(old, updated) == 0) return;
+        super.updateSubTask(updated);
+        if (subtasks.get(updated.getId()) == updated) {
+            persistPut(updated);
         }
-        save();
     }
 
     @Override
     public void removeTask(int id) {
-        Task t = tasks.remove(id);
-        if (t != null) {
-            deindexForPriority(t);
-            historyManager.remove(id);
+        boolean present = tasks.containsKey(id);
+        super.removeTask(id);
+        if (present) {
+            persistRemove(id);
         }
-        save();
     }
 
     @Override
     public void removeSubTask(int id) {
-        SubTask st = subtasks.remove(id);
-        if (st != null) {
-            deindexForPriority(st);
-            Epic epic = epics.get(st.getEpicId());
-            if (epic != null) {
-                epic.removeSubTaskId(id);
-                updateEpicStatus(epic);
-            }
-            historyManager.remove(id);
+        boolean present = subtasks.containsKey(id);
+        super.removeSubTask(id);
+        if (present) {
+            persistRemove(id);
         }
-        save();
     }
 
     @Override
     public void removeEpic(int id) {
-        Epic epic = epics.remove(id);
-        if (epic == null) return;
-        new ArrayList<>(epic.getSubTaskIds()).stream()
-                .map(subtasks::remove)
-                .filter(Objects::nonNull)
-                .peek(this::deindexForPriority)
-                .map(Task::getId)
-                .forEach(historyManager::remove);
-        historyManager.remove(id);
-        save();
+        boolean present = epics.containsKey(id);
+        super.removeEpic(id);
+        if (present) {
+            persistRemove(id);
+        }
     }
 
+    @Override
+    public void removeAllTasks() {
+        super.removeAllTasks();
+        persist("CLEAR_TASKS");
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        super.removeAllSubTasks();
+        persist("CLEAR_SUBTASKS");
+    }
 
     @Override
     public void clearAll() {
-        tasks.values().forEach(this::deindexForPriority);
-        subtasks.values().forEach(this::deindexForPriority);
-        tasks.clear();
-        epics.clear();
-        subtasks.clear();
-        historyManager.getHistory().forEach(t -> historyManager.remove(t.getId()));
-        idCounter = 0;
-        save();
-    }
-
-    private void updateEpicStatus(Epic epic) {
-        List<SubTask> subs = new ArrayList<>();
-        List<Integer> ids = epic.getSubTaskIds();
-        for (Integer id : ids) {
-            SubTask s = subtasks.get(id);
-            if (s != null) {
-                subs.add(s);
-            }
-        }
-        epic.recalcTimeFields(subtasks);
-        epic.updateStatus(subs);
+        super.clearAll();
+        persist("CLEAR");
     }
 }
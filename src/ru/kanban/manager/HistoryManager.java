@@ -10,5 +10,15 @@ public interface HistoryManager {
     List<Task> getHistory();
 
     void remove(int id);
+
+    default void removeAll(int[] ids) {
+        for (int id : ids) {
+            remove(id);
+        }
+    }
+
+    default void clear() {
+        getHistory().forEach(task -> remove(task.getId()));
+    }
 }
 
@@ -1,75 +1,206 @@
 package ru.kanban.manager;
 
 import ru.kanban.task.Task;
+import ru.kanban.util.IntIntHashMap;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * История просмотров ограниченной ёмкости.
+ * Двусвязный список хранится в заранее выделенных массивах (ячейка — индекс в массивах, свободные
+ * ячейки связаны в отдельный список), а id → ячейка — в {@link IntIntHashMap}, поэтому
+ * {@link #add} после заполнения истории память не выделяет.
+ * Порядок списка — порядок последнего просмотра, от старых к новым.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private static final int MAX_SIZE = 10;
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
-    private Node head;
-    private Node tail;
+    public static final int DEFAULT_CAPACITY = 10;
+    private static final int NIL = -1;
+
+    private final int capacity;
+    private final EvictionPolicy policy;
+    private final long windowMillis;
+    private final Clock clock;
+
+    private final Task[] tasks;
+    private final int[] prev;
+    private final int[] next;
+    private final long[] views;
+    private final long[] viewedAt;
+    private final IntIntHashMap slots;
+    private int head = NIL;
+    private int tail = NIL;
+    private int free;
+    private int size;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY, EvictionPolicy.LRU);
+    }
+
+    public InMemoryHistoryManager(int capacity, EvictionPolicy policy) {
+        this(capacity, policy, 0, null);
+        if (policy == EvictionPolicy.TIME_WINDOW) {
+            throw new IllegalArgumentException("Для TIME_WINDOW нужно задать окно времени");
+        }
+    }
+
+    /**
+     * История с политикой {@link EvictionPolicy#TIME_WINDOW}: просмотры старше {@code window} отбрасываются.
+     */
+    public InMemoryHistoryManager(int capacity, Duration window, Clock clock) {
+        this(capacity, EvictionPolicy.TIME_WINDOW, window.toMillis(), clock);
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Окно истории должно быть положительным: " + window);
+        }
+    }
+
+    private InMemoryHistoryManager(int capacity, EvictionPolicy policy, long windowMillis, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.tasks = new Task[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.views = new long[capacity];
+        this.viewedAt = new long[capacity];
+        this.slots = new IntIntHashMap(capacity);
+        for (int i = 0; i < capacity; i++) {
+            next[i] = i + 1 < capacity ? i + 1 : NIL;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public EvictionPolicy getPolicy() {
+        return policy;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) return;
-        remove(task.getId());
-        linkLast(task);
-        if (nodeMap.size() > MAX_SIZE) {
-            remove(head.getTask().getId());
+        long now = policy == EvictionPolicy.TIME_WINDOW ? clock.millis() : 0;
+        expire(now);
+
+        int slot = slots.getOrDefault(task.getId(), NIL);
+        if (slot != NIL) {
+            unlink(slot);
+            views[slot]++;
+        } else {
+            if (size == capacity) {
+                release(policy == EvictionPolicy.LFU ? leastFrequent() : head);
+            }
+            slot = free;
+            free = next[slot];
+            slots.put(task.getId(), slot);
+            views[slot] = 1;
+            size++;
         }
+        tasks[slot] = task;
+        viewedAt[slot] = now;
+        linkLast(slot);
     }
 
     @Override
     public List<Task> getHistory() {
-        List<Task> result = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            result.add(current.getTask());
-            current = current.getNext();
+        if (policy == EvictionPolicy.TIME_WINDOW) {
+            expire(clock.millis());
+        }
+        List<Task> result = new ArrayList<>(size);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            result.add(tasks[slot]);
         }
         return result;
     }
 
     @Override
     public void remove(int id) {
-        Node node = nodeMap.remove(id);
-        if (node != null) {
-            removeNode(node);
+        int slot = slots.getOrDefault(id, NIL);
+        if (slot != NIL) {
+            release(slot);
         }
     }
 
-    private void linkLast(Task task) {
-        Node newNode = new Node(tail, task, null);
-        if (tail != null) {
-            tail.setNext(newNode);
+    /**
+     * Освобождает все ячейки за O(размер истории), не обходя задачи по id.
+     */
+    @Override
+    public void clear() {
+        for (int slot = head; slot != NIL; ) {
+            int after = next[slot];
+            tasks[slot] = null;
+            next[slot] = free;
+            free = slot;
+            slot = after;
+        }
+        slots.clear();
+        head = NIL;
+        tail = NIL;
+        size = 0;
+    }
+
+    /**
+     * Просмотры упорядочены по времени, поэтому устаревшие записи всегда в начале списка.
+     */
+    private void expire(long now) {
+        if (policy != EvictionPolicy.TIME_WINDOW) return;
+        while (head != NIL && now - viewedAt[head] > windowMillis) {
+            release(head);
+        }
+    }
+
+    private int leastFrequent() {
+        int victim = head;
+        for (int slot = next[head]; slot != NIL; slot = next[slot]) {
+            if (views[slot] < views[victim]) {
+                victim = slot;
+            }
+        }
+        return victim;
+    }
+
+    private void release(int slot) {
+        slots.remove(tasks[slot].getId());
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail != NIL) {
+            next[tail] = slot;
         } else {
-            head = newNode;
+            head = slot;
         }
-        tail = newNode;
-        nodeMap.put(task.getId(), newNode);
+        tail = slot;
     }
 
-    private void removeNode(Node node) {
-        Node prev = node.getPrev();
-        Node next = node.getNext();
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
 
-        if (prev != null) {
-            prev.setNext(next);
+        if (before != NIL) {
+            next[before] = after;
         } else {
-            head = next;
+            head = after;
         }
 
-        if (next != null) {
-            next.setPrev(prev);
+        if (after != NIL) {
+            prev[after] = before;
         } else {
-            tail = prev;
+            tail = before;
         }
     }
 }
-
-
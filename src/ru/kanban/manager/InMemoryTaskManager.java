@@ -3,23 +3,49 @@ package ru.kanban.manager;
 import ru.kanban.task.Epic;
 import ru.kanban.task.SubTask;
 import ru.kanban.task.Task;
+import ru.kanban.task.TaskField;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+import ru.kanban.util.IntHashMap;
+import ru.kanban.util.OrderedIntHashMap;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int idCounter = 0;
 
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, SubTask> subtasks = new HashMap<>();
+    protected final OrderedIntHashMap<Task> tasks = new OrderedIntHashMap<>();
+    protected final OrderedIntHashMap<Epic> epics = new OrderedIntHashMap<>();
+    protected final OrderedIntHashMap<SubTask> subtasks = new OrderedIntHashMap<>();
     protected final HistoryManager historyManager;
 
+    // Ключ — зафиксированное время начала: задачу, изменённую на месте, всё ещё можно найти и удалить.
     protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(
             Comparator
-                    .comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .comparing(Task::getCommittedStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
                     .thenComparingInt(Task::getId)
     );
+    protected final IntervalIndex intervalIndex = new IntervalIndex();
+    protected final StatusIndex statusIndex = new StatusIndex();
+    protected final SearchIndex searchIndex = new SearchIndex();
+
+    private int batchDepth;
+    private final IntHashMap<Epic> touchedEpics = new IntHashMap<>();
+
+    private long priorityVersion;
+    private List<Task> tasksView = List.of();
+    private long tasksViewVersion;
+    private List<Epic> epicsView = List.of();
+    private long epicsViewVersion;
+    private List<SubTask> subTasksView = List.of();
+    private long subTasksViewVersion;
+    private List<Task> prioritizedView = List.of();
+    private long prioritizedViewVersion;
+    private BoardSnapshot snapshot = new BoardSnapshot(0, List.of(), List.of(), List.of(), List.of());
 
     public InMemoryTaskManager(HistoryManager historyManager) {
         this.historyManager = historyManager;
@@ -36,6 +62,8 @@ public class InMemoryTaskManager implements TaskManager {
         validateNoOverlap(task);
         tasks.put(task.getId(), task);
         indexForPriority(task);
+        statusIndex.update(task);
+        searchIndex.update(task);
         return task;
     }
 
@@ -44,7 +72,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (title == null || description == null) return null;
         Epic epic = new Epic(idCounter++, title, description);
         epics.put(epic.getId(), epic);
-        epic.recalcTimeFields(subtasks);
+        epic.recalcTimeFields(subtasks::get);
+        statusIndex.update(epic);
+        searchIndex.update(epic);
         return epic;
     }
 
@@ -58,9 +88,11 @@ public class InMemoryTaskManager implements TaskManager {
         SubTask sub = new SubTask(idCounter++, title, description, epicId);
         validateNoOverlap(sub);
         subtasks.put(sub.getId(), sub);
-        epic.addSubTaskId(sub.getId());
         indexForPriority(sub);
-        updateEpicStatus(epic);
+        statusIndex.update(sub);
+        searchIndex.update(sub);
+        epic.applySubTask(sub);
+        statusIndex.update(epic);
         return sub;
     }
 
@@ -70,6 +102,8 @@ public class InMemoryTaskManager implements TaskManager {
         validateNoOverlap(task);
         tasks.put(task.getId(), task);
         indexForPriority(task);
+        statusIndex.update(task);
+        searchIndex.update(task);
     }
 
     @Override
@@ -81,17 +115,20 @@ public class InMemoryTaskManager implements TaskManager {
         }
         validateNoOverlap(subtask);
         subtasks.put(subtask.getId(), subtask);
-        epic.addSubTaskId(subtask.getId());
         indexForPriority(subtask);
-        updateEpicStatus(epic);
+        statusIndex.update(subtask);
+        searchIndex.update(subtask);
+        epic.applySubTask(subtask);
+        statusIndex.update(epic);
     }
 
     @Override
     public void addEpic(Epic epic) {
         if (epic != null) {
             epics.put(epic.getId(), epic);
-            epic.recalcTimeFields(subtasks);
             updateEpicStatus(epic);
+            statusIndex.update(epic);
+            searchIndex.update(epic);
         }
     }
 
@@ -124,17 +161,63 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        if (tasksViewVersion != tasks.version()) {
+            tasksView = tasks.orderedStream().toList();
+            tasksViewVersion = tasks.version();
+        }
+        return tasksView;
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        if (epicsViewVersion != epics.version()) {
+            epicsView = epics.orderedStream().toList();
+            epicsViewVersion = epics.version();
+        }
+        return epicsView;
     }
 
     @Override
     public List<SubTask> getAllSubTasks() {
-        return new ArrayList<>(subtasks.values());
+        if (subTasksViewVersion != subtasks.version()) {
+            subTasksView = subtasks.orderedStream().toList();
+            subTasksViewVersion = subtasks.version();
+        }
+        return subTasksView;
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return tasks.page(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return epics.page(afterId, limit);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        return subtasks.page(afterId, limit);
+    }
+
+    /**
+     * Поток читает хранилище напрямую; изменение доски во время обхода приводит к
+     * {@link ConcurrentModificationException}.
+     */
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.orderedStream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return epics.orderedStream();
+    }
+
+    @Override
+    public Stream<SubTask> streamSubTasks() {
+        return subtasks.orderedStream();
     }
 
     @Override
@@ -144,7 +227,7 @@ public class InMemoryTaskManager implements TaskManager {
             return List.of();
         }
         return epic.getSubTaskIds().stream()
-                .map(subtasks::get)
+                .mapToObj(subtasks::get)
                 .filter(Objects::nonNull)
                 .toList();
     }
@@ -155,10 +238,15 @@ public class InMemoryTaskManager implements TaskManager {
         Task old = tasks.get(updated.getId());
         if (old == null) return;
 
-        deindexForPriority(old);
-        validateNoOverlap(updated);
+        int changes = changesOf(old, updated);
+        if (changes == 0) return;
+        if ((changes & TaskField.TIMING) != 0) {
+            validateNoOverlap(updated);
+            deindexForPriority(old);
+            indexForPriority(updated);
+        }
         tasks.put(updated.getId(), updated);
-        indexForPriority(updated);
+        reindexChanged(updated, changes);
     }
 
     @Override
@@ -167,22 +255,48 @@ public class InMemoryTaskManager implements TaskManager {
         SubTask old = subtasks.get(updated.getId());
         if (old == null) return;
 
-        deindexForPriority(old);
-        validateNoOverlap(updated);
+        int changes = changesOf(old, updated);
+        if (changes == 0) return;
+        if ((changes & TaskField.TIMING) != 0) {
+            validateNoOverlap(updated);
+            deindexForPriority(old);
+            indexForPriority(updated);
+        }
         subtasks.put(updated.getId(), updated);
-        indexForPriority(updated);
+        reindexChanged(updated, changes);
 
         Epic epic = epics.get(updated.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
+        if ((changes & (TaskField.STATUS.bit() | TaskField.TIMING)) != 0
+                && epic != null && epic.hasSubTask(updated.getId())) {
+            epic.applySubTask(updated);
+            statusIndex.update(epic);
         }
     }
 
+    /**
+     * Для того же объекта — поля, изменённые на месте; новая копия могла изменить что угодно.
+     */
+    static int changesOf(Task old, Task updated) {
+        return old == updated ? updated.getChanges() : TaskField.ALL;
+    }
+
+    private void reindexChanged(Task task, int changes) {
+        if ((changes & TaskField.STATUS.bit()) != 0) {
+            statusIndex.update(task);
+        }
+        if ((changes & TaskField.TEXT) != 0) {
+            searchIndex.update(task);
+        }
+        task.commitChanges();
+    }
+
     @Override
     public void removeTask(int id) {
         Task t = tasks.remove(id);
         if (t != null) {
             deindexForPriority(t);
+            statusIndex.remove(TaskType.TASK, id);
+            searchIndex.remove(id);
             historyManager.remove(id);
         }
     }
@@ -192,10 +306,12 @@ public class InMemoryTaskManager implements TaskManager {
         SubTask st = subtasks.remove(id);
         if (st != null) {
             deindexForPriority(st);
+            statusIndex.remove(TaskType.SUBTASK, id);
+            searchIndex.remove(id);
             Epic epic = epics.get(st.getEpicId());
             if (epic != null) {
                 epic.removeSubTaskId(id);
-                updateEpicStatus(epic);
+                statusIndex.update(epic);
             }
             historyManager.remove(id);
         }
@@ -205,37 +321,94 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeEpic(int id) {
         Epic epic = epics.remove(id);
         if (epic == null) return;
-        new ArrayList<>(epic.getSubTaskIds()).stream()
-                .map(subtasks::remove)
-                .filter(Objects::nonNull)
-                .peek(this::deindexForPriority)
-                .map(Task::getId)
-                .forEach(historyManager::remove);
+        int[] subIds = epic.getSubTaskIds().toArray();
+        for (int subId : subIds) {
+            SubTask st = subtasks.remove(subId);
+            if (st != null) {
+                deindexForPriority(st);
+                statusIndex.remove(TaskType.SUBTASK, subId);
+                searchIndex.remove(subId);
+            }
+        }
+        statusIndex.remove(TaskType.EPIC, id);
+        searchIndex.remove(id);
+        historyManager.removeAll(subIds);
         historyManager.remove(id);
     }
 
     @Override
-    public void clearAll() {
+    public void removeAllTasks() {
+        if (tasks.isEmpty()) return;
+        int[] ids = tasks.keySet().toArray();
         tasks.values().forEach(this::deindexForPriority);
+        tasks.clear();
+        statusIndex.clear(TaskType.TASK);
+        searchIndex.removeAll(ids);
+        historyManager.removeAll(ids);
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        if (subtasks.isEmpty()) return;
+        int[] ids = subtasks.keySet().toArray();
         subtasks.values().forEach(this::deindexForPriority);
+        subtasks.clear();
+        statusIndex.clear(TaskType.SUBTASK);
+        searchIndex.removeAll(ids);
+        epics.values().forEach(epic -> {
+            epic.clearSubTaskIds();
+            statusIndex.update(epic);
+        });
+        historyManager.removeAll(ids);
+    }
+
+    /**
+     * Хранилища и индексы сбрасываются целиком, без обхода задач.
+     */
+    @Override
+    public void clearAll() {
         tasks.clear();
         epics.clear();
         subtasks.clear();
-        historyManager.getHistory().forEach(t -> historyManager.remove(t.getId()));
+        prioritizedTasks.clear();
+        intervalIndex.clear();
+        statusIndex.clear();
+        searchIndex.clear();
+        priorityVersion++;
+        touchedEpics.clear();
+        historyManager.clear();
         idCounter = 0;
     }
 
-    private void updateEpicStatus(Epic epic) {
-        List<SubTask> subs = new ArrayList<>();
-        List<Integer> ids = epic.getSubTaskIds();
-        for (Integer id : ids) {
-            SubTask s = subtasks.get(id);
-            if (s != null) {
-                subs.add(s);
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        batchDepth++;
+        try {
+            operations.accept(this);
+        } finally {
+            if (--batchDepth == 0) {
+                completeBatch();
             }
         }
-        epic.recalcTimeFields(subtasks);
-        epic.updateStatus(subs);
+    }
+
+    protected boolean inBatch() {
+        return batchDepth > 0;
+    }
+
+    protected void completeBatch() {
+        List<Epic> touched = new ArrayList<>(touchedEpics.values());
+        touchedEpics.clear();
+        touched.forEach(this::updateEpicStatus);
+    }
+
+    protected void updateEpicStatus(Epic epic) {
+        if (inBatch()) {
+            touchedEpics.put(epic.getId(), epic);
+            return;
+        }
+        epic.recalcTimeFields(subtasks::get);
+        statusIndex.update(epic);
     }
 
     @Override
@@ -243,37 +416,141 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    /**
+     * Задачи в статусе {@code status} по всем типам: сначала задачи, затем эпики, затем подзадачи, внутри — по id.
+     */
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        return statusIndex.get(status);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return statusIndex.get(type, status);
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus() {
+        return statusIndex.counts();
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Пересобирает расписание, индекс статусов и поисковый индекс по текущим хранилищам — после загрузки в обход обычных методов.
+     */
+    protected void rebuildIndexes() {
+        prioritizedTasks.clear();
+        intervalIndex.clear();
+        statusIndex.clear();
+        priorityVersion++;
+        tasks.values().forEach(this::indexForPriority);
+        subtasks.values().forEach(this::indexForPriority);
+        tasks.values().forEach(statusIndex::update);
+        epics.values().forEach(statusIndex::update);
+        subtasks.values().forEach(statusIndex::update);
+        List<Task> all = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        all.addAll(tasks.values());
+        all.addAll(epics.values());
+        all.addAll(subtasks.values());
+        searchIndex.rebuild(all);
+    }
+
     protected void indexForPriority(Task t) {
+        t.commitChanges();
         if (t.getStartTime() != null) {
             prioritizedTasks.add(t);
+            intervalIndex.add(t);
+            priorityVersion++;
         }
     }
 
     protected void deindexForPriority(Task t) {
-        if (t.getStartTime() != null) {
+        if (t.getCommittedStartTime() != null) {
             prioritizedTasks.remove(t);
+            priorityVersion++;
         }
+        intervalIndex.remove(t.getId());
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        if (prioritizedViewVersion != priorityVersion) {
+            prioritizedView = List.copyOf(prioritizedTasks);
+            prioritizedViewVersion = priorityVersion;
+        }
+        return prioritizedView;
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        Schedule.checkRange(from, to);
+        Task lowest = probe(from);
+        return Schedule.between(intervalIndex.covering(from),
+                prioritizedTasks.subSet(lowest, true, probe(to), false));
+    }
+
+    @Override
+    public List<Task> nextTasksAfter(LocalDateTime time, int limit) {
+        Schedule.checkLimit(limit);
+        return Schedule.first(prioritizedTasks.tailSet(probe(time), true), limit);
+    }
+
+    @Override
+    public LocalDateTime firstFreeSlot(Duration duration, LocalDateTime after) {
+        Schedule.checkSlot(duration, after);
+        Task lowest = probe(after);
+        return Schedule.firstFreeSlot(intervalIndex.covering(after), prioritizedTasks.tailSet(lowest, true),
+                duration, after);
+    }
+
+    /**
+     * Ключ для навигации по расписанию: меньше любой задачи с тем же временем начала.
+     */
+    private static Task probe(LocalDateTime start) {
+        if (start == null) {
+            throw new IllegalArgumentException("Время не задано");
+        }
+        Task probe = new Task(Integer.MIN_VALUE, "", "");
+        probe.setStartTime(start);
+        probe.commitChanges();
+        return probe;
+    }
+
+    @Override
+    public long getVersion() {
+        return tasks.version() + epics.version() + subtasks.version() + priorityVersion;
+    }
+
+    @Override
+    public BoardSnapshot getSnapshot() {
+        long version = getVersion();
+        if (snapshot.getVersion() != version) {
+            snapshot = new BoardSnapshot(version, getAllTasks(), getAllEpics(), getAllSubTasks(),
+                    getPrioritizedTasks());
+        }
+        return snapshot;
     }
 
-    private boolean overlaps(Task a, Task b) {
-        if (a == null || b == null) return false;
-        LocalDateTime aStart = a.getStartTime();
-        LocalDateTime aEnd = a.getEndTime();
-        LocalDateTime bStart = b.getStartTime();
-        LocalDateTime bEnd = b.getEndTime();
-        if (aStart == null || aEnd == null || bStart == null || bEnd == null) return false;
-        return aStart.isBefore(bEnd) && bStart.isBefore(aEnd);
+    /**
+     * Размеры хранилищ и индексов для метрик.
+     */
+    Map<String, Integer> indexSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("tasks", tasks.size());
+        sizes.put("epics", epics.size());
+        sizes.put("subTasks", subtasks.size());
+        sizes.put("searchTerms", searchIndex.termCount());
+        sizes.put("schedule", prioritizedTasks.size());
+        sizes.put("intervals", intervalIndex.size());
+        return sizes;
     }
 
     private boolean overlapsAny(Task candidate, int ignoreId) {
-        return prioritizedTasks.stream()
-                .filter(t -> t.getId() != ignoreId)
-                .anyMatch(t -> overlaps(candidate, t));
+        return intervalIndex.overlapsAny(candidate.getStartTime(), candidate.getEndTime(), ignoreId);
     }
 
     void validateNoOverlap(Task t) {
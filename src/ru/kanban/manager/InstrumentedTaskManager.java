@@ -0,0 +1,557 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+import ru.kanban.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор, замеряющий длительность каждой операции другого менеджера.
+ * На вызов приходится два {@link System#nanoTime()} и запись в гистограмму без блокировок,
+ * поэтому его можно не выключать. Потоки и {@link #getVersion()} не замеряются:
+ * время создания потока ничего не говорит, а версия читается слишком часто.
+ * Для {@link FileBackedTaskManager} дополнительно учитываются запись снимка, запись в журнал и записанные байты.
+ */
+public class InstrumentedTaskManager implements TaskManager, TaskManagerMetricsMXBean, AutoCloseable {
+
+    public enum Operation {
+        CREATE_TASK, CREATE_EPIC, CREATE_SUBTASK,
+        ADD_TASK, ADD_EPIC, ADD_SUBTASK,
+        GET_TASK, GET_EPIC, GET_SUBTASK,
+        GET_ALL_TASKS, GET_ALL_EPICS, GET_ALL_SUBTASKS, GET_SUBTASKS_OF_EPIC,
+        GET_TASKS_PAGE, GET_EPICS_PAGE, GET_SUBTASKS_PAGE,
+        UPDATE_TASK, UPDATE_SUBTASK,
+        REMOVE_TASK, REMOVE_EPIC, REMOVE_SUBTASK, REMOVE_ALL_TASKS, REMOVE_ALL_SUBTASKS, CLEAR_ALL,
+        GET_HISTORY, GET_BY_STATUS, COUNT_BY_STATUS, SEARCH,
+        GET_PRIORITIZED_TASKS, GET_TASKS_BETWEEN, NEXT_TASKS_AFTER, FIRST_FREE_SLOT,
+        GET_SNAPSHOT, BATCH,
+        SAVE, JOURNAL_WRITE, LOAD
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final TaskManager delegate;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+    private ObjectName objectName;
+
+    public InstrumentedTaskManager(TaskManager delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Менеджер не задан");
+        }
+        this.delegate = delegate;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        if (delegate instanceof FileBackedTaskManager fileBacked) {
+            fileBacked.setWriteListener(new FileBackedTaskManager.WriteListener() {
+                @Override
+                public void snapshotWritten(long nanos, long bytes) {
+                    histograms[Operation.SAVE.ordinal()].record(nanos);
+                }
+
+                @Override
+                public void journalWritten(long nanos, long bytes) {
+                    histograms[Operation.JOURNAL_WRITE.ordinal()].record(nanos);
+                }
+            });
+        }
+    }
+
+    /**
+     * Загружает {@link FileBackedTaskManager} и оборачивает его, записав время загрузки в {@link Operation#LOAD}.
+     */
+    public static InstrumentedTaskManager loadFromFile(Path filePath) {
+        long started = System.nanoTime();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(filePath);
+        InstrumentedTaskManager manager = new InstrumentedTaskManager(loaded);
+        manager.record(Operation.LOAD, started);
+        return manager;
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public OperationStats getStats(Operation operation) {
+        return new OperationStats(histograms[operation.ordinal()]);
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        Map<String, OperationStats> result = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram histogram = histograms[operation.ordinal()];
+            if (histogram.getCount() > 0) {
+                result.put(operation.name(), new OperationStats(histogram));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return delegate instanceof FileBackedTaskManager fileBacked ? fileBacked.getBytesWritten() : 0;
+    }
+
+    @Override
+    public Map<String, Integer> getIndexSizes() {
+        if (delegate instanceof InMemoryTaskManager inMemory) {
+            return inMemory.indexSizes();
+        }
+        if (delegate instanceof ConcurrentTaskManager concurrent) {
+            return concurrent.indexSizes();
+        }
+        return Map.of();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBean-сервере под именем {@code ru.kanban:type=TaskManager,name=<name>}.
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("Метрики уже зарегистрированы: " + objectName);
+        }
+        try {
+            ObjectName candidate = new ObjectName("ru.kanban:type=TaskManager,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            objectName = candidate;
+            return candidate;
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики: " + name, e);
+        }
+    }
+
+    /**
+     * Снимает метрики с регистрации и закрывает обёрнутый менеджер, если он закрываемый;
+     * проверяемая ошибка при его закрытии оборачивается в {@link ManagerSaveException}.
+     */
+    @Override
+    public void close() throws ManagerSaveException {
+        try {
+            unregisterMBean();
+        } finally {
+            if (delegate instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ManagerSaveException("Ошибка при закрытии менеджера", e);
+                }
+            }
+        }
+    }
+
+    private synchronized void unregisterMBean() {
+        if (objectName == null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось снять метрики с регистрации: " + objectName, e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    private void record(Operation operation, long started) {
+        histograms[operation.ordinal()].record(System.nanoTime() - started);
+    }
+
+    @Override
+    public Task createTask(String title, String description) {
+        long started = System.nanoTime();
+        try {
+            return delegate.createTask(title, description);
+        } finally {
+            record(Operation.CREATE_TASK, started);
+        }
+    }
+
+    @Override
+    public Epic createEpic(String title, String description) {
+        long started = System.nanoTime();
+        try {
+            return delegate.createEpic(title, description);
+        } finally {
+            record(Operation.CREATE_EPIC, started);
+        }
+    }
+
+    @Override
+    public SubTask createSubTask(String title, String description, int epicId) {
+        long started = System.nanoTime();
+        try {
+            return delegate.createSubTask(title, description, epicId);
+        } finally {
+            record(Operation.CREATE_SUBTASK, started);
+        }
+    }
+
+    @Override
+    public void addTask(Task task) throws ManagerSaveException {
+        long started = System.nanoTime();
+        try {
+            delegate.addTask(task);
+        } finally {
+            record(Operation.ADD_TASK, started);
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        long started = System.nanoTime();
+        try {
+            delegate.addEpic(epic);
+        } finally {
+            record(Operation.ADD_EPIC, started);
+        }
+    }
+
+    @Override
+    public void addSubTask(SubTask subtask) {
+        long started = System.nanoTime();
+        try {
+            delegate.addSubTask(subtask);
+        } finally {
+            record(Operation.ADD_SUBTASK, started);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getTask(id);
+        } finally {
+            record(Operation.GET_TASK, started);
+        }
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getEpic(id);
+        } finally {
+            record(Operation.GET_EPIC, started);
+        }
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getSubTask(id);
+        } finally {
+            record(Operation.GET_SUBTASK, started);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getAllTasks();
+        } finally {
+            record(Operation.GET_ALL_TASKS, started);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getAllEpics();
+        } finally {
+            record(Operation.GET_ALL_EPICS, started);
+        }
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getAllSubTasks();
+        } finally {
+            record(Operation.GET_ALL_SUBTASKS, started);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksOfEpic(int epicId) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getSubTasksOfEpic(epicId);
+        } finally {
+            record(Operation.GET_SUBTASKS_OF_EPIC, started);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getTasksPage(afterId, limit);
+        } finally {
+            record(Operation.GET_TASKS_PAGE, started);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getEpicsPage(afterId, limit);
+        } finally {
+            record(Operation.GET_EPICS_PAGE, started);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getSubTasksPage(afterId, limit);
+        } finally {
+            record(Operation.GET_SUBTASKS_PAGE, started);
+        }
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return delegate.streamTasks();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return delegate.streamEpics();
+    }
+
+    @Override
+    public Stream<SubTask> streamSubTasks() {
+        return delegate.streamSubTasks();
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        long started = System.nanoTime();
+        try {
+            delegate.updateTask(updatedTask);
+        } finally {
+            record(Operation.UPDATE_TASK, started);
+        }
+    }
+
+    @Override
+    public void updateSubTask(SubTask updatedSubTask) {
+        long started = System.nanoTime();
+        try {
+            delegate.updateSubTask(updatedSubTask);
+        } finally {
+            record(Operation.UPDATE_SUBTASK, started);
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        long started = System.nanoTime();
+        try {
+            delegate.removeTask(id);
+        } finally {
+            record(Operation.REMOVE_TASK, started);
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        long started = System.nanoTime();
+        try {
+            delegate.removeEpic(id);
+        } finally {
+            record(Operation.REMOVE_EPIC, started);
+        }
+    }
+
+    @Override
+    public void removeSubTask(int id) {
+        long started = System.nanoTime();
+        try {
+            delegate.removeSubTask(id);
+        } finally {
+            record(Operation.REMOVE_SUBTASK, started);
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        long started = System.nanoTime();
+        try {
+            delegate.removeAllTasks();
+        } finally {
+            record(Operation.REMOVE_ALL_TASKS, started);
+        }
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        long started = System.nanoTime();
+        try {
+            delegate.removeAllSubTasks();
+        } finally {
+            record(Operation.REMOVE_ALL_SUBTASKS, started);
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        long started = System.nanoTime();
+        try {
+            delegate.clearAll();
+        } finally {
+            record(Operation.CLEAR_ALL, started);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } finally {
+            record(Operation.GET_HISTORY, started);
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getByStatus(status);
+        } finally {
+            record(Operation.GET_BY_STATUS, started);
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getByStatus(type, status);
+        } finally {
+            record(Operation.GET_BY_STATUS, started);
+        }
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus() {
+        long started = System.nanoTime();
+        try {
+            return delegate.countByStatus();
+        } finally {
+            record(Operation.COUNT_BY_STATUS, started);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.search(query, limit);
+        } finally {
+            record(Operation.SEARCH, started);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            record(Operation.GET_PRIORITIZED_TASKS, started);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        long started = System.nanoTime();
+        try {
+            return delegate.getTasksBetween(from, to);
+        } finally {
+            record(Operation.GET_TASKS_BETWEEN, started);
+        }
+    }
+
+    @Override
+    public List<Task> nextTasksAfter(LocalDateTime time, int limit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.nextTasksAfter(time, limit);
+        } finally {
+            record(Operation.NEXT_TASKS_AFTER, started);
+        }
+    }
+
+    @Override
+    public LocalDateTime firstFreeSlot(Duration duration, LocalDateTime after) {
+        long started = System.nanoTime();
+        try {
+            return delegate.firstFreeSlot(duration, after);
+        } finally {
+            record(Operation.FIRST_FREE_SLOT, started);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public BoardSnapshot getSnapshot() {
+        long started = System.nanoTime();
+        try {
+            return delegate.getSnapshot();
+        } finally {
+            record(Operation.GET_SNAPSHOT, started);
+        }
+    }
+
+    /**
+     * Операции пакета выполняются через этот декоратор, поэтому замеряются и по отдельности, и пакет целиком.
+     */
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        long started = System.nanoTime();
+        try {
+            delegate.batch(inner -> operations.accept(this));
+        } finally {
+            record(Operation.BATCH, started);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+import ru.kanban.util.IntHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Индекс интервалов [startTime, endTime) запланированных задач.
+ * Декартово дерево по (startTime, id), в каждом узле хранится максимальный конец интервала в поддереве,
+ * поэтому проверка пересечения выполняется за O(log n) вместо полного обхода.
+ * Записи ищутся по id, так что удаление не зависит от того, менялись ли поля задачи после индексации.
+ */
+class IntervalIndex {
+
+    private final IntHashMap<Entry> entries = new IntHashMap<>();
+    private Entry root;
+
+    void add(Task task) {
+        if (task == null) return;
+        remove(task.getId());
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null) return;
+
+        Entry entry = new Entry(task, start, end, ThreadLocalRandom.current().nextInt());
+        root = insert(root, entry);
+        entries.put(entry.id, entry);
+    }
+
+    void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            root = delete(root, entry);
+        }
+    }
+
+    boolean overlapsAny(LocalDateTime start, LocalDateTime end, int ignoreId) {
+        if (start == null || end == null) return false;
+        return overlaps(root, start, end, ignoreId);
+    }
+
+    /**
+     * Задачи, начавшиеся раньше {@code time} и закончившиеся позже него, по времени начала.
+     * Задачи без длительности в индекс не попадают и ничего не накрывают.
+     */
+    List<Task> covering(LocalDateTime time) {
+        List<Task> result = new ArrayList<>(1);
+        collectCovering(root, time, result);
+        return result;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+        root = null;
+    }
+
+    private static boolean overlaps(Entry node, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        while (node != null) {
+            if (!node.maxEnd.isAfter(start)) return false;
+            if (overlaps(node.left, start, end, ignoreId)) return true;
+            if (!node.start.isBefore(end)) return false;
+            if (node.id != ignoreId && start.isBefore(node.end)) return true;
+            node = node.right;
+        }
+        return false;
+    }
+
+    private static void collectCovering(Entry node, LocalDateTime time, List<Task> result) {
+        while (node != null) {
+            if (!node.maxEnd.isAfter(time)) return;
+            collectCovering(node.left, time, result);
+            if (!node.start.isBefore(time)) return;
+            if (time.isBefore(node.end)) result.add(node.task);
+            node = node.right;
+        }
+    }
+
+    private static Entry insert(Entry node, Entry entry) {
+        if (node == null) return entry;
+        if (compare(entry, node) < 0) {
+            node.left = insert(node.left, entry);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, entry);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Entry delete(Entry node, Entry entry) {
+        if (node == null) return null;
+        if (node == entry) {
+            return merge(node.left, node.right);
+        }
+        if (compare(entry, node) < 0) {
+            node.left = delete(node.left, entry);
+        } else {
+            node.right = delete(node.right, entry);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Entry merge(Entry left, Entry right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Entry rotateRight(Entry node) {
+        Entry pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Entry rotateLeft(Entry node) {
+        Entry pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Entry node) {
+        LocalDateTime max = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(max)) max = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd.isAfter(max)) max = node.right.maxEnd;
+        node.maxEnd = max;
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int byStart = a.start.compareTo(b.start);
+        return byStart != 0 ? byStart : Integer.compare(a.id, b.id);
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final Task task;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int priority;
+        private LocalDateTime maxEnd;
+        private Entry left;
+        private Entry right;
+
+        private Entry(Task task, LocalDateTime start, LocalDateTime end, int priority) {
+            this.id = task.getId();
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package ru.kanban.manager;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
 public final class Managers {
     private Managers() {
     }
@@ -8,9 +12,46 @@ public final class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new SynchronizedHistoryManager(getDefaultHistory()));
+    }
+
+    public static InstrumentedTaskManager getInstrumented(TaskManager manager) {
+        return new InstrumentedTaskManager(manager);
+    }
+
+    /**
+     * Оборачивает менеджер метриками и публикует их в JMX под именем {@code name}.
+     */
+    public static InstrumentedTaskManager getMonitored(TaskManager manager, String name) {
+        InstrumentedTaskManager instrumented = new InstrumentedTaskManager(manager);
+        instrumented.registerMBean(name);
+        return instrumented;
+    }
+
+    public static InstrumentedTaskManager loadInstrumented(Path filePath) {
+        return InstrumentedTaskManager.loadFromFile(filePath);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getHistory(int capacity, EvictionPolicy policy) {
+        return new InMemoryHistoryManager(capacity, policy);
+    }
+
+    public static HistoryManager getTimeWindowHistory(int capacity, Duration window) {
+        return new InMemoryHistoryManager(capacity, window, Clock.systemUTC());
+    }
+
+    public static AsyncHistoryManager getAsyncHistory() {
+        return AsyncHistoryManager.start(getDefaultHistory());
+    }
+
+    public static SessionHistoryManager getSessionHistory() {
+        return new SessionHistoryManager();
+    }
 }
 
 
@@ -0,0 +1,638 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Менеджер только для чтения поверх двоичного снимка ({@link SnapshotFormat#BINARY}), отображённого в память.
+ * При открытии читается только индекс в конце файла (или, для снимков без индекса, заголовки записей),
+ * а задачи декодируются при каждом обращении и в куче не хранятся.
+ * Журнал не применяется: архив отражает состояние на момент записи снимка.
+ * Отображение освобождается сборщиком мусора, когда менеджер становится недостижим.
+ */
+public class MappedArchiveTaskManager implements TaskManager {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private static final int TASK = TaskType.TASK.ordinal();
+    private static final int EPIC = TaskType.EPIC.ordinal();
+    private static final int SUBTASK = TaskType.SUBTASK.ordinal();
+
+    private final Path filePath;
+    private final MappedByteBuffer[] segments;
+    private final int segmentSize;
+    private final long fileSize;
+    private final long generation;
+    private final BinarySnapshotFormat.IndexView index;
+    private final HistoryManager historyManager;
+
+    private volatile long[] epicChildren;
+    private volatile BoardSnapshot snapshot;
+    private volatile StatusIndex statusIndex;
+    private volatile SearchIndex searchIndex;
+    private volatile IntervalIndex intervalIndex;
+
+    private MappedArchiveTaskManager(Path filePath, int segmentSize, HistoryManager historyManager)
+            throws IOException {
+        this.filePath = filePath;
+        this.segmentSize = segmentSize;
+        this.historyManager = historyManager;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            segments = new MappedByteBuffer[(int) ((fileSize + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(segmentSize, fileSize - position));
+            }
+        }
+        MappedInput in = new MappedInput(0);
+        generation = BinarySnapshotFormat.readHeader(in, filePath);
+        BinarySnapshotFormat.IndexView footer = readFooter();
+        index = footer != null ? footer : scan(in);
+    }
+
+    public static MappedArchiveTaskManager open(Path filePath) throws ManagerSaveException {
+        return open(filePath, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static MappedArchiveTaskManager open(Path filePath, int segmentSize) throws ManagerSaveException {
+        try {
+            return new MappedArchiveTaskManager(filePath, segmentSize, Managers.getDefaultHistory());
+        } catch (EOFException e) {
+            throw new ManagerSaveException("Снимок обрезан: " + filePath, e);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при открытии архива: " + filePath, e);
+        }
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = load(find(id, TASK));
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = loadEpic(find(id, EPIC));
+        if (epic != null) {
+            historyManager.add(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        SubTask task = (SubTask) load(find(id, SUBTASK));
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return getSnapshot().getTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return getSnapshot().getEpics();
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return getSnapshot().getSubTasks();
+    }
+
+    @Override
+    public List<SubTask> getSubTasksOfEpic(int epicId) {
+        if (find(epicId, EPIC) < 0) return List.of();
+        List<SubTask> result = new ArrayList<>();
+        forEachChild(epicId, result::add);
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(TASK, afterId, limit, this::load);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(EPIC, afterId, limit, this::loadEpic);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        return page(SUBTASK, afterId, limit, entry -> (SubTask) load(entry));
+    }
+
+    /**
+     * Потоки декодируют записи по мере обхода индекса, не собирая срез доски.
+     */
+    @Override
+    public Stream<Task> streamTasks() {
+        return stream(TASK, this::load);
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return stream(EPIC, this::loadEpic);
+    }
+
+    @Override
+    public Stream<SubTask> streamSubTasks() {
+        return stream(SUBTASK, entry -> (SubTask) load(entry));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        return statusIndex().get(status);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return statusIndex().get(type, status);
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus() {
+        return statusIndex().counts();
+    }
+
+    /**
+     * Индекс статусов строится по полному срезу при первом запросе; архив не меняется, так что дальше он не обновляется.
+     */
+    private StatusIndex statusIndex() {
+        StatusIndex current = statusIndex;
+        if (current != null) return current;
+        BoardSnapshot board = getSnapshot();
+        current = new StatusIndex();
+        board.getTasks().forEach(current::update);
+        board.getEpics().forEach(current::update);
+        board.getSubTasks().forEach(current::update);
+        statusIndex = current;
+        return current;
+    }
+
+    /**
+     * Поисковый индекс, как и индекс статусов, строится по срезу при первом запросе.
+     */
+    @Override
+    public List<Task> search(String query, int limit) {
+        SearchIndex current = searchIndex;
+        if (current == null) {
+            BoardSnapshot board = getSnapshot();
+            List<Task> all = new ArrayList<>(board.getTasks().size() + board.getEpics().size()
+                    + board.getSubTasks().size());
+            all.addAll(board.getTasks());
+            all.addAll(board.getEpics());
+            all.addAll(board.getSubTasks());
+            current = new SearchIndex();
+            current.rebuild(all);
+            searchIndex = current;
+        }
+        return current.search(query, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getSnapshot().getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        Schedule.checkRange(from, to);
+        List<Task> prioritized = getPrioritizedTasks();
+        int lo = lowerBound(prioritized, from);
+        return Schedule.between(intervalIndex().covering(from),
+                prioritized.subList(lo, lowerBound(prioritized, to)));
+    }
+
+    @Override
+    public List<Task> nextTasksAfter(LocalDateTime time, int limit) {
+        Schedule.checkLimit(limit);
+        List<Task> prioritized = getPrioritizedTasks();
+        int lo = lowerBound(prioritized, time);
+        return List.copyOf(prioritized.subList(lo, (int) Math.min(prioritized.size(), (long) lo + limit)));
+    }
+
+    @Override
+    public LocalDateTime firstFreeSlot(Duration duration, LocalDateTime after) {
+        Schedule.checkSlot(duration, after);
+        List<Task> prioritized = getPrioritizedTasks();
+        int lo = lowerBound(prioritized, after);
+        return Schedule.firstFreeSlot(intervalIndex().covering(after),
+                prioritized.subList(lo, prioritized.size()), duration, after);
+    }
+
+    private IntervalIndex intervalIndex() {
+        IntervalIndex current = intervalIndex;
+        if (current != null) return current;
+        current = new IntervalIndex();
+        getPrioritizedTasks().forEach(current::add);
+        intervalIndex = current;
+        return current;
+    }
+
+    /**
+     * Индекс первой задачи, начинающейся не раньше {@code time}, в упорядоченном по началу списке.
+     */
+    private static int lowerBound(List<Task> prioritized, LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Время не задано");
+        }
+        int lo = 0;
+        int hi = prioritized.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prioritized.get(mid).getStartTime().isBefore(time)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @Override
+    public long getVersion() {
+        return generation;
+    }
+
+    /**
+     * Полный срез архива; при первом вызове декодирует все записи.
+     */
+    @Override
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot current = snapshot;
+        if (current != null) return current;
+
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<SubTask> subTasks = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            int type = index.type(i);
+            if (type == TASK) {
+                tasks.add(load(i));
+            } else if (type == EPIC) {
+                epics.add(loadEpic(i));
+            } else {
+                subTasks.add((SubTask) load(i));
+            }
+        }
+        List<Task> prioritized = new ArrayList<>();
+        tasks.stream().filter(t -> t.getStartTime() != null).forEach(prioritized::add);
+        subTasks.stream().filter(t -> t.getStartTime() != null).forEach(prioritized::add);
+        prioritized.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+
+        current = new BoardSnapshot(generation, tasks, epics, subTasks, prioritized);
+        snapshot = current;
+        return current;
+    }
+
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        operations.accept(this);
+    }
+
+    @Override
+    public Task createTask(String title, String description) {
+        throw readOnly();
+    }
+
+    @Override
+    public Epic createEpic(String title, String description) {
+        throw readOnly();
+    }
+
+    @Override
+    public SubTask createSubTask(String title, String description, int epicId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addSubTask(SubTask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateSubTask(SubTask updatedSubTask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeTask(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeSubTask(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAllTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void clearAll() {
+        throw readOnly();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Архив доступен только для чтения: " + filePath);
+    }
+
+    /**
+     * Номер записи индекса с данным id и типом или -1.
+     */
+    private int find(int id, int type) {
+        int low = 0;
+        int high = index.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compare(index.id(mid), id);
+            if (cmp == 0) cmp = Integer.compare(index.type(mid), type);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private <T> List<T> page(int type, int afterId, int limit, IntFunction<T> decoder) {
+        Schedule.checkLimit(limit);
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        for (int i = firstAfter(afterId); i < index.size() && result.size() < limit; i++) {
+            if (index.type(i) == type) {
+                result.add(decoder.apply(i));
+            }
+        }
+        return result;
+    }
+
+    private <T> Stream<T> stream(int type, IntFunction<T> decoder) {
+        return IntStream.range(0, index.size()).filter(i -> index.type(i) == type).mapToObj(decoder);
+    }
+
+    /**
+     * Номер первой записи индекса с id больше {@code afterId}.
+     */
+    private int firstAfter(int afterId) {
+        int low = 0;
+        int high = index.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.id(mid) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Task load(int entry) {
+        if (entry < 0) return null;
+        long offset = index.offset(entry);
+        try {
+            MappedInput in = new MappedInput(offset);
+            in.varLong();
+            return BinarySnapshotFormat.decode(in);
+        } catch (IOException | RuntimeException e) {
+            throw new ManagerSaveException("Ошибка при разборе записи архива со смещением " + offset + ": " + filePath, e);
+        }
+    }
+
+    private Epic loadEpic(int entry) {
+        Epic epic = (Epic) load(entry);
+        if (epic != null) {
+            forEachChild(epic.getId(), epic::applySubTask);
+        }
+        return epic;
+    }
+
+    private void forEachChild(int epicId, Consumer<SubTask> action) {
+        long[] children = children();
+        long from = (long) (epicId ^ Integer.MIN_VALUE) << 32;
+        int i = Arrays.binarySearch(children, from);
+        if (i < 0) i = -i - 1;
+        for (; i < children.length && (children[i] >>> 32) == (from >>> 32); i++) {
+            action.accept((SubTask) load((int) children[i]));
+        }
+    }
+
+    /**
+     * Подзадачи, сгруппированные по эпику: отсортированные ключи (id эпика, номер записи индекса).
+     * Строится при первом обращении к эпику.
+     */
+    private long[] children() {
+        long[] children = epicChildren;
+        if (children != null) return children;
+        int count = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (index.type(i) == SUBTASK) count++;
+        }
+        children = new long[count];
+        count = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (index.type(i) == SUBTASK) {
+                children[count++] = ((long) (index.epicId(i) ^ Integer.MIN_VALUE) << 32) | i;
+            }
+        }
+        Arrays.sort(children);
+        epicChildren = children;
+        return children;
+    }
+
+    private BinarySnapshotFormat.IndexView readFooter() {
+        int trailer = BinarySnapshotFormat.INDEX_TRAILER_BYTES;
+        if (fileSize < trailer) return null;
+        byte[] magic = BinarySnapshotFormat.INDEX_MAGIC;
+        for (int i = 0; i < magic.length; i++) {
+            if (byteAt(fileSize - magic.length + i) != (magic[i] & 0xFF)) return null;
+        }
+        long start = longAt(fileSize - trailer);
+        int count = intAt(fileSize - trailer + 8);
+        if (start < 0 || count < 0
+                || start + (long) count * BinarySnapshotFormat.INDEX_ENTRY_BYTES != fileSize - trailer) {
+            return null;
+        }
+        return new FooterIndex(start, count);
+    }
+
+    /**
+     * Индекс для снимков без хвостового индекса: один проход по записям с декодированием.
+     */
+    private BinarySnapshotFormat.IndexView scan(MappedInput in) throws IOException {
+        BinarySnapshotFormat.RecordIndex records = new BinarySnapshotFormat.RecordIndex(16);
+        while (true) {
+            long offset = in.position;
+            long length = in.varLong();
+            if (length == 0) break;
+            long body = in.position;
+            records.add(BinarySnapshotFormat.decode(in), offset);
+            in.position = body + length;
+        }
+        records.sort();
+        return records;
+    }
+
+    private int byteAt(long position) {
+        return segments[(int) (position / segmentSize)].get((int) (position % segmentSize)) & 0xFF;
+    }
+
+    private int intAt(long position) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | byteAt(position + i);
+        }
+        return value;
+    }
+
+    private long longAt(long position) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | byteAt(position + i);
+        }
+        return value;
+    }
+
+    private final class FooterIndex implements BinarySnapshotFormat.IndexView {
+        private final long start;
+        private final int size;
+
+        private FooterIndex(long start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int id(int i) {
+            return intAt(entry(i));
+        }
+
+        @Override
+        public int type(int i) {
+            return intAt(entry(i) + 4);
+        }
+
+        @Override
+        public int epicId(int i) {
+            return intAt(entry(i) + 8);
+        }
+
+        @Override
+        public long offset(int i) {
+            return longAt(entry(i) + 12);
+        }
+
+        private long entry(int i) {
+            return start + (long) i * BinarySnapshotFormat.INDEX_ENTRY_BYTES;
+        }
+    }
+
+    /**
+     * Курсор по отображённому файлу; записи могут пересекать границы сегментов, поэтому чтение побайтовое.
+     */
+    private final class MappedInput extends BinarySnapshotFormat.Input {
+        private long position;
+
+        private MappedInput(long position) {
+            this.position = position;
+        }
+
+        @Override
+        int next() throws IOException {
+            if (position >= fileSize) throw new EOFException();
+            return byteAt(position++);
+        }
+
+        @Override
+        String utf8(int length) throws IOException {
+            if (fileSize - position < length) throw new EOFException();
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                int segment = (int) (position / segmentSize);
+                int offset = (int) (position % segmentSize);
+                int n = Math.min(length - copied, segments[segment].limit() - offset);
+                segments[segment].get(offset, bytes, copied, n);
+                copied += n;
+                position += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,35 +0,0 @@
-package ru.kanban.manager;
-
-import ru.kanban.task.Task;
-
-class Node {
-    private final Task task;
-    private Node prev;
-    private Node next;
-
-    public Node(Node prev, Task task, Node next) {
-        this.task = task;
-        this.prev = prev;
-        this.next = next;
-    }
-
-    public Task getTask() {
-        return task;
-    }
-
-    public Node getPrev() {
-        return prev;
-    }
-
-    public void setPrev(Node prev) {
-        this.prev = prev;
-    }
-
-    public Node getNext() {
-        return next;
-    }
-
-    public void setNext(Node next) {
-        this.next = next;
-    }
-}
@@ -0,0 +1,68 @@
+package ru.kanban.manager;
+
+import ru.kanban.util.LatencyHistogram;
+
+/**
+ * Срез метрик одной операции: число вызовов и длительности в наносекундах.
+ * Класс с геттерами, а не record, чтобы JMX отображал его как составной тип.
+ */
+public final class OperationStats {
+
+    private final long count;
+    private final long totalNanos;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    OperationStats(LatencyHistogram histogram) {
+        this.count = histogram.getCount();
+        this.totalNanos = histogram.getTotal();
+        this.meanNanos = histogram.getMean();
+        this.p50Nanos = histogram.getValueAtPercentile(50);
+        this.p90Nanos = histogram.getValueAtPercentile(90);
+        this.p99Nanos = histogram.getValueAtPercentile(99);
+        this.p999Nanos = histogram.getValueAtPercentile(99.9);
+        this.maxNanos = histogram.getMax();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{count=" + count + ", mean=" + meanNanos + ", p50=" + p50Nanos + ", p90=" + p90Nanos
+                + ", p99=" + p99Nanos + ", p999=" + p999Nanos + ", max=" + maxNanos + '}';
+    }
+}
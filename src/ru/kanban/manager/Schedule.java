@@ -0,0 +1,90 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Общие части диапазонных запросов к расписанию.
+ * Задачи, которые начались до границы диапазона и ещё идут, передаются отдельно — их находит {@link IntervalIndex#covering}.
+ * Ближайшая предшествующая задача для этого не годится: задача без длительности есть в расписании,
+ * но не проверяется на пересечения и может лежать внутри чужого интервала.
+ */
+final class Schedule {
+
+    private Schedule() {
+    }
+
+    static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный диапазон: " + from + " — " + to);
+        }
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным: " + limit);
+        }
+    }
+
+    static void checkSlot(Duration duration, LocalDateTime after) {
+        if (duration == null || duration.isNegative() || after == null) {
+            throw new IllegalArgumentException("Некорректный запрос свободного окна: " + duration + " после " + after);
+        }
+    }
+
+    /**
+     * @param covering задачи, начавшиеся раньше начала диапазона и закончившиеся позже него
+     * @param starting задачи, начинающиеся в диапазоне, по порядку
+     */
+    static List<Task> between(List<Task> covering, Collection<Task> starting) {
+        if (covering.isEmpty()) {
+            return List.copyOf(starting);
+        }
+        List<Task> result = new ArrayList<>(starting.size() + covering.size());
+        result.addAll(covering);
+        result.addAll(starting);
+        return List.copyOf(result);
+    }
+
+    static List<Task> first(Iterable<Task> tasks, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, 64));
+        for (Task task : tasks) {
+            if (result.size() >= limit) break;
+            result.add(task);
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Идёт по задачам, начинающимся не раньше {@code after}, пока между ними не найдётся окно нужной длины.
+     */
+    static LocalDateTime firstFreeSlot(List<Task> covering, Iterable<Task> following, Duration duration,
+                                       LocalDateTime after) {
+        LocalDateTime candidate = after;
+        for (Task task : covering) {
+            if (endOf(task).isAfter(candidate)) {
+                candidate = endOf(task);
+            }
+        }
+        for (Task task : following) {
+            if (!task.getStartTime().isBefore(candidate.plus(duration))) {
+                return candidate;
+            }
+            LocalDateTime end = endOf(task);
+            if (end.isAfter(candidate)) {
+                candidate = end;
+            }
+        }
+        return candidate;
+    }
+
+    private static LocalDateTime endOf(Task task) {
+        LocalDateTime end = task.getEndTime();
+        return end != null ? end : task.getStartTime();
+    }
+}
@@ -0,0 +1,224 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+import ru.kanban.util.IntHashMap;
+import ru.kanban.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Обратный индекс по словам названий и описаний.
+ * Слова приводятся к нижнему регистру, «ё» заменяется на «е»; разделитель — всё, что не буква и не цифра.
+ * Словарь упорядочен, поэтому слова с общим префиксом лежат подряд и находятся одним подмножеством.
+ * Для каждой задачи запоминаются её слова, чтобы при обновлении убрать только их.
+ * Весь индекс сразу строит {@link #rebuild}: списки задач по словам заполняются за два прохода без словаря на каждую задачу.
+ */
+class SearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final TreeMap<String, IntIntHashMap> postings = new TreeMap<>();
+    private final IntHashMap<Task> documents = new IntHashMap<>();
+    private final IntHashMap<String[]> documentTerms = new IntHashMap<>();
+
+    void update(Task task) {
+        remove(task.getId());
+        Terms terms = Terms.of(task);
+        for (int i = 0; i < terms.words.length; i++) {
+            postings.computeIfAbsent(terms.words[i], k -> new IntIntHashMap()).put(task.getId(), terms.weights[i]);
+        }
+        documents.put(task.getId(), task);
+        documentTerms.put(task.getId(), terms.words);
+    }
+
+    /**
+     * Заменяет содержимое индекса задачами {@code tasks}.
+     * Первый проход разбирает тексты и считает задачи на каждое слово, второй заполняет списки нужного размера.
+     */
+    void rebuild(Collection<? extends Task> tasks) {
+        clear();
+        Map<String, Posting> byWord = new HashMap<>();
+        Task[] docs = tasks.toArray(Task[]::new);
+        Terms[] docTerms = new Terms[docs.length];
+        Posting[][] docPostings = new Posting[docs.length][];
+        for (int d = 0; d < docs.length; d++) {
+            Terms terms = Terms.of(docs[d]);
+            Posting[] found = new Posting[terms.words.length];
+            for (int i = 0; i < found.length; i++) {
+                Posting posting = byWord.get(terms.words[i]);
+                if (posting == null) {
+                    posting = new Posting(terms.words[i]);
+                    byWord.put(posting.word, posting);
+                }
+                posting.size++;
+                // Одно и то же слово у разных задач хранится одной строкой.
+                terms.words[i] = posting.word;
+                found[i] = posting;
+            }
+            docTerms[d] = terms;
+            docPostings[d] = found;
+        }
+        for (int d = 0; d < docs.length; d++) {
+            int id = docs[d].getId();
+            Posting[] found = docPostings[d];
+            for (int i = 0; i < found.length; i++) {
+                Posting posting = found[i];
+                if (posting.docs == null) {
+                    posting.docs = new IntIntHashMap(posting.size);
+                }
+                posting.docs.put(id, docTerms[d].weights[i]);
+            }
+            documents.put(id, docs[d]);
+            documentTerms.put(id, docTerms[d].words);
+        }
+        for (Posting posting : byWord.values()) {
+            postings.put(posting.word, posting.docs);
+        }
+    }
+
+    void remove(int id) {
+        String[] terms = documentTerms.remove(id);
+        if (terms == null) return;
+        documents.remove(id);
+        for (String term : terms) {
+            IntIntHashMap docs = postings.get(term);
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    void removeAll(int[] ids) {
+        for (int id : ids) {
+            remove(id);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        documents.clear();
+        documentTerms.clear();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Задачи, в которых каждое слово запроса встречается как начало какого-либо слова.
+     * Совпадение в названии весит больше, чем в описании; при равном весе первой идёт задача с меньшим id.
+     */
+    List<Task> search(String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным: " + limit);
+        }
+        Set<String> prefixes = new LinkedHashSet<>(tokenize(query));
+        if (prefixes.isEmpty() || limit == 0) return List.of();
+
+        IntIntHashMap scores = null;
+        for (String prefix : prefixes) {
+            IntIntHashMap previous = scores;
+            IntIntHashMap matched = new IntIntHashMap();
+            NavigableMap<String, IntIntHashMap> range =
+                    postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            for (IntIntHashMap docs : range.values()) {
+                docs.forEach((id, weight) -> {
+                    if (previous == null) {
+                        matched.put(id, matched.getOrDefault(id, 0) + weight);
+                    } else if (previous.containsKey(id)) {
+                        // Первое совпадение продолжает счёт, набранный предыдущими словами запроса.
+                        matched.put(id, matched.getOrDefault(id, previous.getOrDefault(id, 0)) + weight);
+                    }
+                });
+            }
+            if (matched.isEmpty()) return List.of();
+            scores = matched;
+        }
+
+        // Куча хранит k лучших; на вершине худший из них: меньший вес, при равенстве — больший id.
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.<long[]>comparingLong(e -> e[0])
+                .thenComparingLong(e -> -e[1]));
+        scores.forEach((id, score) -> {
+            top.add(new long[]{score, id});
+            if (top.size() > limit) top.poll();
+        });
+        List<Task> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(documents.get((int) top.poll()[1]));
+        }
+        Collections.reverse(result);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Слова задачи без повторов, по возрастанию, и их веса: названия и описания по отдельности сортируются и сливаются.
+     */
+    private record Terms(String[] words, int[] weights) {
+        static Terms of(Task task) {
+            String[] title = tokenize(task.getTitle()).toArray(String[]::new);
+            String[] description = tokenize(task.getDescription()).toArray(String[]::new);
+            Arrays.sort(title);
+            Arrays.sort(description);
+            String[] words = new String[title.length + description.length];
+            int[] weights = new int[words.length];
+            int n = 0;
+            int t = 0;
+            int d = 0;
+            while (t < title.length || d < description.length) {
+                boolean fromTitle = d == description.length
+                        || t < title.length && title[t].compareTo(description[d]) <= 0;
+                String word = fromTitle ? title[t++] : description[d++];
+                int weight = fromTitle ? TITLE_WEIGHT : DESCRIPTION_WEIGHT;
+                if (n > 0 && words[n - 1].equals(word)) {
+                    weights[n - 1] += weight;
+                } else {
+                    words[n] = word;
+                    weights[n++] = weight;
+                }
+            }
+            return new Terms(Arrays.copyOf(words, n), Arrays.copyOf(weights, n));
+        }
+    }
+
+    private static final class Posting {
+        private final String word;
+        private int size;
+        private IntIntHashMap docs;
+
+        private Posting(String word) {
+            this.word = word;
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        String folded = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,328 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+import ru.kanban.util.IntHashMap;
+import ru.kanban.util.IntIntHashMap;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * История просмотров отдельно для каждой сессии (пользователя).
+ * Сессия привязывается к потоку через {@link #bind(String)}, и все вызовы {@link #add}/{@link #getHistory}
+ * в этом потоке идут в её историю; без привязки используется общая сессия {@link #DEFAULT_SESSION}.
+ * Сессии распределены по полосам с отдельными блокировками, так что разные пользователи почти не мешают друг другу.
+ * Число сессий ограничено (при переполнении полосы вытесняется давно не использовавшаяся сессия),
+ * а сессии, простаивающие дольше заданного времени, удаляются.
+ * Каждая полоса помнит, какие её сессии смотрели задачу, поэтому удаление задачи
+ * обходит только эти сессии, а не все.
+ */
+public class SessionHistoryManager implements HistoryManager {
+
+    public static final String DEFAULT_SESSION = "";
+    private static final int SHARDS = 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final Supplier<HistoryManager> historyFactory;
+    private final long idleMillis;
+    private final Clock clock;
+    private final ThreadLocal<String> current = ThreadLocal.withInitial(() -> DEFAULT_SESSION);
+
+    public SessionHistoryManager() {
+        this(InMemoryHistoryManager::new, 10_000, Duration.ofMinutes(30), Clock.systemUTC());
+    }
+
+    /**
+     * @param historyFactory создаёт историю новой сессии
+     * @param maxSessions    наибольшее число одновременно хранимых сессий
+     * @param idleTimeout    сессия без обращений дольше этого времени удаляется
+     */
+    public SessionHistoryManager(Supplier<HistoryManager> historyFactory, int maxSessions, Duration idleTimeout,
+                                 Clock clock) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("Число сессий должно быть положительным: " + maxSessions);
+        }
+        this.historyFactory = historyFactory;
+        this.idleMillis = idleTimeout.toMillis();
+        this.clock = clock;
+        int perShard = Math.max(1, (maxSessions + SHARDS - 1) / SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(perShard);
+        }
+    }
+
+    /**
+     * Привязывает сессию к текущему потоку до закрытия возвращённого объекта.
+     */
+    public Binding bind(String sessionId) {
+        Binding binding = new Binding(current.get());
+        current.set(sessionId);
+        return binding;
+    }
+
+    /**
+     * Выполняет {@code action} с сессией, привязанной к текущему потоку, и возвращает прежнюю привязку.
+     */
+    public void bind(String sessionId, Runnable action) {
+        Binding binding = bind(sessionId);
+        try {
+            action.run();
+        } finally {
+            binding.close();
+        }
+    }
+
+    public String currentSession() {
+        return current.get();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        String sessionId = current.get();
+        Shard shard = shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            Session session = shard.session(sessionId, clock.millis(), true);
+            session.history.add(task);
+            shard.viewed(session, task.getId());
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(current.get());
+    }
+
+    public List<Task> getHistory(String sessionId) {
+        Shard shard = shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            Session session = shard.session(sessionId, clock.millis(), false);
+            return session == null ? List.of() : session.history.getHistory();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет задачу из истории всех сессий, которые её смотрели.
+     */
+    @Override
+    public void remove(int id) {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.removeTask(id);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (int id : ids) {
+                    shard.removeTask(id);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Удаляет все сессии вместе с их историями.
+     */
+    @Override
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.sessions.clear();
+                shard.viewers.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    public void endSession(String sessionId) {
+        Shard shard = shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            Session session = shard.sessions.remove(sessionId);
+            if (session != null) {
+                shard.drop(session);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public int sessionCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.evictIdle(clock.millis());
+                count += shard.sessions.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Число пар «задача — сессия» в обратных индексах полос.
+     */
+    int indexedViews() {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                count += shard.viewers.values().stream().mapToInt(Set::size).sum();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private Shard shardFor(String sessionId) {
+        int h = sessionId.hashCode() * 0x9E3779B9;
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    public final class Binding implements AutoCloseable {
+        private final String previous;
+
+        private Binding(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            current.set(previous);
+        }
+    }
+
+    private static final class Session {
+        private static final int MIN_PRUNE_AT = 16;
+
+        private final HistoryManager history;
+        // Id, под которыми сессия записана в обратном индексе полосы; часть могла уже уйти из истории.
+        private IntIntHashMap viewed = new IntIntHashMap();
+        private int pruneAt = MIN_PRUNE_AT;
+        private long lastAccess;
+
+        private Session(HistoryManager history) {
+            this.history = history;
+        }
+    }
+
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Session> sessions;
+        private final IntHashMap<Set<Session>> viewers = new IntHashMap<>();
+
+        private Shard(int limit) {
+            // Порядок доступа: первыми идут давно не использовавшиеся сессии.
+            this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                    if (size() <= limit) return false;
+                    drop(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        private Session session(String sessionId, long now, boolean create) {
+            evictIdle(now);
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                if (!create) return null;
+                session = new Session(historyFactory.get());
+                sessions.put(sessionId, session);
+            }
+            session.lastAccess = now;
+            return session;
+        }
+
+        private void evictIdle(long now) {
+            Iterator<Session> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                Session session = it.next();
+                if (now - session.lastAccess <= idleMillis) break;
+                it.remove();
+                drop(session);
+            }
+        }
+
+        private void viewed(Session session, int id) {
+            if (session.viewed.containsKey(id)) return;
+            session.viewed.put(id, 0);
+            Set<Session> sessionsOfTask = viewers.get(id);
+            if (sessionsOfTask == null) {
+                sessionsOfTask = new HashSet<>(4);
+                viewers.put(id, sessionsOfTask);
+            }
+            sessionsOfTask.add(session);
+            if (session.viewed.size() > session.pruneAt) {
+                prune(session);
+            }
+        }
+
+        /**
+         * Оставляет в индексе только задачи, которые ещё лежат в истории сессии; остальные история уже вытеснила.
+         */
+        private void prune(Session session) {
+            IntIntHashMap inHistory = new IntIntHashMap();
+            for (Task task : session.history.getHistory()) {
+                inHistory.put(task.getId(), 0);
+            }
+            session.viewed.forEach((id, ignored) -> {
+                if (!inHistory.containsKey(id)) {
+                    unview(session, id);
+                }
+            });
+            session.viewed = inHistory;
+            session.pruneAt = Math.max(2 * inHistory.size(), Session.MIN_PRUNE_AT);
+        }
+
+        private void removeTask(int id) {
+            Set<Session> sessionsOfTask = viewers.remove(id);
+            if (sessionsOfTask == null) return;
+            for (Session session : sessionsOfTask) {
+                session.history.remove(id);
+                session.viewed.remove(id);
+            }
+        }
+
+        private void drop(Session session) {
+            session.viewed.forEach((id, ignored) -> unview(session, id));
+        }
+
+        private void unview(Session session, int id) {
+            Set<Session> sessionsOfTask = viewers.get(id);
+            if (sessionsOfTask != null && sessionsOfTask.remove(session) && sessionsOfTask.isEmpty()) {
+                viewers.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Формат файла-снимка {@link FileBackedTaskManager}.
+ * Снимок хранит номер поколения журнала, строки задач, эпиков и подзадач — именно в таком порядке —
+ * и id из истории просмотров от старых к новым.
+ * Статусы и время эпиков менеджер после загрузки вычисляет заново по подзадачам, один раз для всей доски.
+ */
+public interface SnapshotFormat {
+
+    SnapshotFormat CSV = new CsvSnapshotFormat();
+    SnapshotFormat BINARY = new BinarySnapshotFormat();
+
+    void write(Path file, long generation, BoardSnapshot board, int[] history) throws IOException;
+
+    default void write(Path file, long generation, BoardSnapshot board) throws IOException {
+        write(file, generation, board, new int[0]);
+    }
+
+    /**
+     * Передаёт задачи снимка в {@code sink} в порядке записи, затем id истории в {@code history},
+     * и возвращает номер поколения. Повреждённые данные приводят к {@link ManagerSaveException}.
+     */
+    long read(Path file, Consumer<Task> sink, IntConsumer history) throws IOException;
+
+    default long read(Path file, Consumer<Task> sink) throws IOException {
+        return read(file, sink, id -> { });
+    }
+
+    long readGeneration(Path file) throws IOException;
+
+    /**
+     * Определяет формат существующего файла по сигнатуре в начале; пустой или текстовый файл считается CSV.
+     */
+    static SnapshotFormat detect(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(BinarySnapshotFormat.MAGIC.length);
+        }
+        return BinarySnapshotFormat.isSignature(head) ? BINARY : CSV;
+    }
+
+    /**
+     * Переписывает снимок {@code source} в формате {@code format} в файл {@code target}.
+     * Номер поколения сохраняется, поэтому при конвертации на месте журнал остаётся действительным.
+     */
+    static void convert(Path source, Path target, SnapshotFormat format) throws ManagerSaveException {
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<SubTask> subTasks = new ArrayList<>();
+        List<Integer> history = new ArrayList<>();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            long generation = detect(source).read(source, task -> {
+                switch (task.getType()) {
+                    case TASK -> tasks.add(task);
+                    case EPIC -> epics.add((Epic) task);
+                    case SUBTASK -> subTasks.add((SubTask) task);
+                }
+            }, history::add);
+            format.write(tmp, generation, new BoardSnapshot(0, tasks, epics, subTasks, List.of()),
+                    history.stream().mapToInt(Integer::intValue).toArray());
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при конвертации файла: " + source, e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+import ru.kanban.util.OrderedIntHashMap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Вторичный индекс: тип и статус → задачи, по возрастанию id.
+ * Задача ищется во всех корзинах своего типа, поэтому её можно переиндексировать и после того,
+ * как статус поменяли на месте.
+ */
+class StatusIndex {
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final EnumMap<TaskType, EnumMap<TaskStatus, OrderedIntHashMap<Task>>> buckets =
+            new EnumMap<>(TaskType.class);
+
+    StatusIndex() {
+        for (TaskType type : TYPES) {
+            EnumMap<TaskStatus, OrderedIntHashMap<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : STATUSES) {
+                byStatus.put(status, new OrderedIntHashMap<>());
+            }
+            buckets.put(type, byStatus);
+        }
+    }
+
+    void update(Task task) {
+        TaskStatus current = task.getStatus();
+        buckets.get(task.getType()).forEach((status, bucket) -> {
+            if (status == current) {
+                bucket.put(task.getId(), task);
+            } else {
+                bucket.remove(task.getId());
+            }
+        });
+    }
+
+    void remove(TaskType type, int id) {
+        for (OrderedIntHashMap<Task> bucket : buckets.get(type).values()) {
+            bucket.remove(id);
+        }
+    }
+
+    void clear(TaskType type) {
+        for (OrderedIntHashMap<Task> bucket : buckets.get(type).values()) {
+            bucket.clear();
+        }
+    }
+
+    void clear() {
+        for (TaskType type : TYPES) {
+            clear(type);
+        }
+    }
+
+    int size(TaskType type) {
+        int size = 0;
+        for (OrderedIntHashMap<Task> bucket : buckets.get(type).values()) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    List<Task> get(TaskType type, TaskStatus status) {
+        return buckets.get(type).get(status).orderedStream().toList();
+    }
+
+    /**
+     * Задачи всех типов: сначала задачи, затем эпики, затем подзадачи.
+     */
+    List<Task> get(TaskStatus status) {
+        int size = 0;
+        for (TaskType type : TYPES) {
+            size += buckets.get(type).get(status).size();
+        }
+        List<Task> result = new ArrayList<>(size);
+        for (TaskType type : TYPES) {
+            buckets.get(type).get(status).orderedStream().forEach(result::add);
+        }
+        return List.copyOf(result);
+    }
+
+    Map<TaskStatus, Integer> counts() {
+        Map<TaskStatus, Integer> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            int count = 0;
+            for (TaskType type : TYPES) {
+                count += buckets.get(type).get(status).size();
+            }
+            result.put(status, count);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.kanban.manager;
+
+import ru.kanban.task.Task;
+
+import java.util.List;
+
+class SynchronizedHistoryManager implements HistoryManager {
+
+    private final HistoryManager delegate;
+
+    SynchronizedHistoryManager(HistoryManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+    }
+
+    @Override
+    public synchronized void removeAll(int[] ids) {
+        delegate.removeAll(ids);
+    }
+
+    @Override
+    public synchronized void clear() {
+        delegate.clear();
+    }
+}
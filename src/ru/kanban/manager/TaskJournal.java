@@ -0,0 +1,170 @@
+package ru.kanban.manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал операций рядом со снимком: одна строка на запись, первая строка — поколение снимка.
+ * Перевод строки внутри кавычек CSV записи не разделяет.
+ * Записи сразу уходят в файл, а fsync выполняется группами по {@code syncEvery} записей.
+ * <p>
+ * Записи: {@code PUT,<строка CSV>} или, при двоичном снимке, {@code PUTB,<Base64>} — задача целиком;
+ * {@code DEL,<id>}, {@code VIEW,<id>}, {@code CLEAR}, {@code CLEAR_TASKS}, {@code CLEAR_SUBTASKS}.
+ * Изменения внутри {@code batch} дописываются одной пачкой с одним fsync.
+ */
+class TaskJournal implements Closeable {
+
+    static final String VIEW = "VIEW";
+    private static final String HEADER_PREFIX = "journal,";
+
+    private final Path path;
+    private final int syncEvery;
+    private FileChannel channel;
+    private int unsynced;
+    private long recordCount;
+    private volatile long bytesWritten;
+
+    TaskJournal(Path path, int syncEvery) {
+        this.path = path;
+        this.syncEvery = syncEvery;
+    }
+
+    static String viewRecord(int id) {
+        return VIEW + "," + id;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Байты, записанные в журнал этим экземпляром, включая заголовки.
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Подключается к журналу поколения {@code generation} и возвращает его записи для повторного применения.
+     * Недописанная последняя строка обрезается, журнал чужого поколения очищается.
+     */
+    List<String> open(long generation) throws IOException {
+        List<String> records = new ArrayList<>();
+        if (Files.exists(path)) {
+            byte[] bytes = Files.readAllBytes(path);
+            List<String> lines = new ArrayList<>();
+            int end = splitRecords(bytes, lines);
+            if (!lines.isEmpty() && lines.get(0).equals(HEADER_PREFIX + generation)) {
+                for (int i = 1; i < lines.size(); i++) {
+                    if (!lines.get(i).isEmpty()) {
+                        records.add(lines.get(i));
+                    }
+                }
+                ensureOpen();
+                if (end < bytes.length) {
+                    channel.truncate(end);
+                }
+                recordCount = records.size();
+                return records;
+            }
+        }
+        reset(generation);
+        return records;
+    }
+
+    /**
+     * Делит журнал на записи по переводам строк вне кавычек CSV и возвращает конец последней целой записи.
+     */
+    private static int splitRecords(byte[] bytes, List<String> lines) {
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                quoted = !quoted;
+            } else if (bytes[i] == '\n' && !quoted) {
+                lines.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    void reset(long generation) throws IOException {
+        ensureOpen();
+        channel.truncate(0);
+        write(HEADER_PREFIX + generation);
+        channel.force(false);
+        unsynced = 0;
+        recordCount = 0;
+    }
+
+    void append(String record) throws IOException {
+        ensureOpen();
+        write(record);
+        recordCount++;
+        if (++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    void appendAll(List<String> records) throws IOException {
+        appendAll(records, true);
+    }
+
+    /**
+     * Дописывает записи одной операцией записи; без {@code sync} fsync откладывается до {@link #sync()}.
+     */
+    void appendAll(List<String> records, boolean sync) throws IOException {
+        if (records.isEmpty()) return;
+        ensureOpen();
+        write(String.join("\n", records));
+        recordCount += records.size();
+        unsynced += records.size();
+        if (sync) {
+            sync();
+        }
+    }
+
+    void sync() throws IOException {
+        if (channel != null && unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+}
@@ -3,10 +3,22 @@ package ru.kanban.manager;
 import ru.kanban.task.Epic;
 import ru.kanban.task.SubTask;
 import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TaskManager {
+    /**
+     * Курсор первой страницы для {@link #getTasksPage} и аналогов.
+     */
+    int FIRST_PAGE = Integer.MIN_VALUE;
+
     Task createTask(String title, String description);
 
     Epic createEpic(String title, String description);
@@ -33,6 +45,25 @@ public interface TaskManager {
 
     List<SubTask> getSubTasksOfEpic(int epicId);
 
+    /**
+     * Не более {@code limit} задач с id больше {@code afterId}, по возрастанию id.
+     * Следующую страницу запрашивают с id последней задачи предыдущей.
+     */
+    List<Task> getTasksPage(int afterId, int limit);
+
+    List<Epic> getEpicsPage(int afterId, int limit);
+
+    List<SubTask> getSubTasksPage(int afterId, int limit);
+
+    /**
+     * Задачи по возрастанию id без промежуточного списка.
+     */
+    Stream<Task> streamTasks();
+
+    Stream<Epic> streamEpics();
+
+    Stream<SubTask> streamSubTasks();
+
     void updateTask(Task updatedTask);
 
     void updateSubTask(SubTask updatedSubTask);
@@ -43,9 +74,63 @@ public interface TaskManager {
 
     void removeSubTask(int id);
 
+    void removeAllTasks();
+
+    /**
+     * Удаляет все подзадачи; эпики остаются пустыми.
+     */
+    void removeAllSubTasks();
+
     void clearAll();
 
     List<Task> getHistory();
 
+    /**
+     * Задачи, эпики и подзадачи в данном статусе, по индексу — без обхода всей доски.
+     */
+    List<Task> getByStatus(TaskStatus status);
+
+    List<Task> getByStatus(TaskType type, TaskStatus status);
+
+    /**
+     * Число задач всех типов в каждом статусе.
+     */
+    Map<TaskStatus, Integer> countByStatus();
+
+    /**
+     * Поиск по словам названий и описаний без учёта регистра; каждое слово запроса может быть началом слова.
+     * Возвращает не более {@code limit} лучших совпадений, совпадения в названии важнее.
+     */
+    List<Task> search(String query, int limit);
+
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Запланированные задачи, пересекающиеся с интервалом [from, to), в порядке начала.
+     */
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Не более {@code limit} запланированных задач, начинающихся не раньше {@code time}.
+     */
+    List<Task> nextTasksAfter(LocalDateTime time, int limit);
+
+    /**
+     * Самое раннее начало не раньше {@code after}, с которого окно длины {@code duration}
+     * не пересекается ни с одной запланированной задачей.
+     */
+    LocalDateTime firstFreeSlot(Duration duration, LocalDateTime after);
+
+    /**
+     * Номер версии доски: меняется при каждом изменении задач, эпиков, подзадач или расписания.
+     * Если версия не изменилась, повторно читать доску не нужно.
+     */
+    long getVersion();
+
+    /**
+     * Неизменяемый срез доски. Пока версия не изменилась, возвращается тот же объект.
+     */
+    BoardSnapshot getSnapshot();
+
+    void batch(Consumer<TaskManager> operations);
 }
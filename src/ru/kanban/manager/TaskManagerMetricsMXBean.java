@@ -0,0 +1,23 @@
+package ru.kanban.manager;
+
+import java.util.Map;
+
+/**
+ * Метрики {@link InstrumentedTaskManager}, доступные через JMX.
+ */
+public interface TaskManagerMetricsMXBean {
+
+    /**
+     * Метрики операций, у которых был хотя бы один вызов, по имени операции.
+     */
+    Map<String, OperationStats> getOperations();
+
+    /**
+     * Байты, записанные в снимки и журнал; 0 для менеджеров без файла.
+     */
+    long getBytesWritten();
+
+    Map<String, Integer> getIndexSizes();
+
+    void reset();
+}
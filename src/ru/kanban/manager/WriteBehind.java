@@ -0,0 +1,29 @@
+package ru.kanban.manager;
+
+import java.time.Duration;
+
+/**
+ * Настройки отложенной записи {@link FileBackedTaskManager}: фоновый поток копит записи журнала
+ * не дольше {@code maxDelay} и не больше {@code maxDirtyOps} штук, а затем пишет их одной пачкой.
+ */
+public record WriteBehind(Durability durability, Duration maxDelay, int maxDirtyOps) {
+
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(50);
+    public static final int DEFAULT_MAX_DIRTY_OPS = 1024;
+
+    public WriteBehind {
+        if (durability == null) {
+            throw new IllegalArgumentException("Уровень надёжности не задан");
+        }
+        if (maxDelay == null || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Некорректная задержка записи: " + maxDelay);
+        }
+        if (maxDirtyOps < 1) {
+            throw new IllegalArgumentException("Порог изменений должен быть положительным: " + maxDirtyOps);
+        }
+    }
+
+    public static WriteBehind of(Durability durability) {
+        return new WriteBehind(durability, DEFAULT_MAX_DELAY, DEFAULT_MAX_DIRTY_OPS);
+    }
+}
@@ -0,0 +1,286 @@
+package ru.kanban.manager;
+
+import ru.kanban.util.RecentIntSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фоновый поток отложенной записи. Вызывающий поток только ставит записи журнала и снимки в очередь,
+ * а поток забирает всё накопленное разом, так что серия изменений становится одной записью и одним fsync.
+ * Новый снимок вытесняет из очереди всё, что стояло до него: эти изменения в нём уже есть.
+ * Просмотры копятся отдельно, по последнему на задачу, встают в очередь перед следующей записью
+ * и пишутся не позже {@code maxDelay}, даже в режиме {@link Durability#SYNC}: их вызывающий не ждёт.
+ * Ошибка записи запоминается и бросается из следующего изменения или {@link #flush()}.
+ */
+class WriteBehindWriter implements Closeable {
+
+    /**
+     * Куда пишет поток; методы вызываются только из него.
+     */
+    interface Target {
+        void writeSnapshot(long generation, BoardSnapshot board, int[] history) throws IOException;
+
+        void append(List<String> records) throws IOException;
+
+        void sync() throws IOException;
+    }
+
+    private record Snapshot(long generation, BoardSnapshot board, int[] history) {
+    }
+
+    private final Target target;
+    private final WriteBehind config;
+    private final String name;
+    private final Thread thread;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition done = lock.newCondition();
+
+    private List<String> records = new ArrayList<>();
+    private final RecentIntSet views = new RecentIntSet();
+    private Snapshot snapshot;
+    private boolean dirty;
+    private long dirtySince;
+    private long enqueued;
+    private long written;
+    private long synced;
+    private long flushRequested;
+    private boolean closed;
+    private Exception failure;
+
+    WriteBehindWriter(Target target, WriteBehind config, String name) {
+        this.target = target;
+        this.config = config;
+        this.name = name;
+        this.thread = new Thread(this::run, "write-behind " + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void appendAll(List<String> batch) throws ManagerSaveException {
+        if (batch.isEmpty()) return;
+        long seq;
+        lock.lock();
+        try {
+            checkFailure();
+            queueViews();
+            records.addAll(batch);
+            seq = markDirty();
+        } finally {
+            lock.unlock();
+        }
+        awaitIfSync(seq);
+    }
+
+    /**
+     * Запоминает просмотр задачи {@code id}, не дожидаясь записи.
+     */
+    void view(int id) throws ManagerSaveException {
+        lock.lock();
+        try {
+            checkFailure();
+            views.add(id);
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ставит в очередь снимок; {@code board} не должен меняться после передачи.
+     */
+    void snapshot(long generation, BoardSnapshot board, int[] history) throws ManagerSaveException {
+        long seq;
+        lock.lock();
+        try {
+            checkFailure();
+            records = new ArrayList<>();
+            views.clear();
+            snapshot = new Snapshot(generation, board, history);
+            seq = markDirty();
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        awaitIfSync(seq);
+    }
+
+    /**
+     * Ждёт, пока всё поставленное в очередь до вызова будет записано и синхронизировано с диском.
+     */
+    void flush() throws ManagerSaveException {
+        lock.lock();
+        try {
+            checkFailure();
+            long target = enqueued;
+            if (synced >= target) return;
+            flushRequested = Math.max(flushRequested, target);
+            work.signal();
+            awaitSynced(target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            lock.lock();
+            try {
+                closed = true;
+                work.signal();
+            } finally {
+                lock.unlock();
+            }
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long markDirty() {
+        boolean first = !dirty;
+        if (first) {
+            dirty = true;
+            dirtySince = System.nanoTime();
+        }
+        long seq = ++enqueued;
+        // Первое изменение будит простаивающий поток, чтобы тот начал отсчёт maxDelay.
+        if (first || config.durability() == Durability.SYNC || pending() >= config.maxDirtyOps()) {
+            work.signal();
+        }
+        return seq;
+    }
+
+    private int pending() {
+        return records.size() + views.size();
+    }
+
+    /**
+     * Переносит накопленные просмотры в очередь записей: всё, что встанет после них, случилось позже.
+     */
+    private void queueViews() {
+        if (views.isEmpty()) return;
+        views.forEach(id -> records.add(TaskJournal.viewRecord(id)));
+        views.clear();
+    }
+
+    private void awaitIfSync(long seq) {
+        if (config.durability() != Durability.SYNC) return;
+        lock.lock();
+        try {
+            awaitSynced(seq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSynced(long seq) {
+        while (synced < seq && failure == null) {
+            done.awaitUninterruptibly();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new ManagerSaveException("Ошибка фоновой записи: " + name, failure);
+        }
+    }
+
+    private boolean ready() {
+        if (flushRequested > synced) return true;
+        if (!dirty) return false;
+        return config.durability() == Durability.SYNC && !records.isEmpty()
+                || snapshot != null
+                || pending() >= config.maxDirtyOps()
+                || System.nanoTime() - dirtySince >= config.maxDelay().toNanos();
+    }
+
+    private void run() {
+        while (true) {
+            List<String> batch;
+            Snapshot pendingSnapshot;
+            long seq;
+            boolean sync;
+            lock.lock();
+            try {
+                while (!closed && !ready()) {
+                    if (dirty) {
+                        long left = config.maxDelay().toNanos() - (System.nanoTime() - dirtySince);
+                        work.awaitNanos(Math.max(left, 1));
+                    } else {
+                        work.await();
+                    }
+                }
+                if (closed && !dirty && written == synced) return;
+                queueViews();
+                batch = records;
+                records = new ArrayList<>();
+                pendingSnapshot = snapshot;
+                snapshot = null;
+                dirty = false;
+                seq = enqueued;
+                sync = config.durability() != Durability.ASYNC || flushRequested > synced || closed;
+            } catch (InterruptedException e) {
+                fail(e);
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (pendingSnapshot != null) {
+                    target.writeSnapshot(pendingSnapshot.generation(), pendingSnapshot.board(),
+                            pendingSnapshot.history());
+                }
+                if (!batch.isEmpty()) {
+                    target.append(batch);
+                }
+                if (sync) {
+                    target.sync();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            }
+
+            lock.lock();
+            try {
+                written = seq;
+                if (sync) {
+                    synced = seq;
+                }
+                done.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        lock.lock();
+        try {
+            failure = e;
+            done.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
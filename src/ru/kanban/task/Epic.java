@@ -1,20 +1,34 @@
 package ru.kanban.task;
 
+import ru.kanban.util.IntSet;
+import ru.kanban.util.OrderedIntHashMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Эпик хранит вклад каждой подзадачи (статус, начало, конец, длительность) и поддерживает агрегаты по ним:
+ * счётчики статусов, суммарную длительность и мультимножества начал и концов.
+ * Изменение одной подзадачи пересчитывает эпик за O(log k), а не обходом всех k подзадач.
+ */
 public class Epic extends Task {
-    private final List<Integer> subTaskIds = new ArrayList<>();
+    private final OrderedIntHashMap<Contribution> subTasks = new OrderedIntHashMap<>();
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private int countedSubTasks;
     private LocalDateTime endTime;
 
     public Epic(int id, String title, String description) {
         super(id, title, description);
         this.status = TaskStatus.NEW;
         this.type = TaskType.EPIC;
+        this.duration = Duration.ZERO;
     }
 
     @Override
@@ -33,15 +47,46 @@ public class Epic extends Task {
     }
 
     public void addSubTaskId(int subTaskId) {
-        subTaskIds.add(subTaskId);
+        subTasks.putIfAbsent(subTaskId, Contribution.EMPTY);
     }
 
     public void removeSubTaskId(int subTaskId) {
-        subTaskIds.remove(Integer.valueOf(subTaskId));
+        Contribution removed = subTasks.remove(subTaskId);
+        if (removed != null) {
+            unaccount(removed);
+            refresh();
+        }
     }
 
-    public List<Integer> getSubTaskIds() {
-        return subTaskIds;
+    public void clearSubTaskIds() {
+        subTasks.clear();
+        Arrays.fill(statusCounts, 0);
+        countedSubTasks = 0;
+        starts.clear();
+        ends.clear();
+        duration = Duration.ZERO;
+        refresh();
+    }
+
+    public boolean hasSubTask(int subTaskId) {
+        return subTasks.containsKey(subTaskId);
+    }
+
+    /**
+     * Id подзадач по возрастанию.
+     */
+    public IntSet getSubTaskIds() {
+        return subTasks.keySet();
+    }
+
+    public void applySubTask(SubTask subTask) {
+        Contribution next = Contribution.of(subTask);
+        Contribution previous = subTasks.put(subTask.getId(), next);
+        if (previous != null) {
+            unaccount(previous);
+        }
+        account(next);
+        refresh();
     }
 
     public void updateStatus(List<SubTask> subTasks) {
@@ -77,7 +122,7 @@ public class Epic extends Task {
                 "id=" + getId() +
                 ", title='" + getTitle() + '\'' +
                 ", status=" + getStatus() +
-                ", subtaskIds=" + subTaskIds +
+                ", subtaskIds=" + subTasks.keySet() +
                 '}';
     }
 
@@ -89,46 +134,70 @@ public class Epic extends Task {
                 Objects.equals(title, epic.title) &&
                 Objects.equals(description, epic.description) &&
                 status == epic.status &&
-                Objects.equals(subTaskIds, epic.subTaskIds);
+                Objects.equals(subTasks.keySet(), epic.subTasks.keySet());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, description, status, subTaskIds);
+        return Objects.hash(id, title, description, status, subTasks.keySet());
     }
 
-    public void recalcTimeFields(Map<Integer, SubTask> subtasks) {
-        if (subTaskIds.isEmpty()) {
-            this.startTime = null;
-            this.duration = Duration.ZERO;
-            this.endTime = null;
-        } else {
+    public void recalcTimeFields(IntFunction<SubTask> subtasks) {
+        Arrays.fill(statusCounts, 0);
+        countedSubTasks = 0;
+        starts.clear();
+        ends.clear();
+        duration = Duration.ZERO;
+
+        subTasks.replaceAll((id, previous) -> {
+            SubTask s = subtasks.apply(id);
+            Contribution contribution = s == null ? Contribution.EMPTY : Contribution.of(s);
+            account(contribution);
+            return contribution;
+        });
+        refresh();
+    }
 
-            Duration total = Duration.ZERO;
-            LocalDateTime minStart = null;
-            LocalDateTime maxEnd = null;
+    private void account(Contribution c) {
+        if (c.status == null) return;
+        statusCounts[c.status.ordinal()]++;
+        countedSubTasks++;
+        if (c.duration != null) duration = duration.plus(c.duration);
+        if (c.start != null) starts.merge(c.start, 1, Integer::sum);
+        if (c.end != null) ends.merge(c.end, 1, Integer::sum);
+    }
 
-            for (Integer id : subTaskIds) {
-                SubTask s = subtasks.get(id);
-                if (s == null) continue;
+    private void unaccount(Contribution c) {
+        if (c.status == null) return;
+        statusCounts[c.status.ordinal()]--;
+        countedSubTasks--;
+        if (c.duration != null) duration = duration.minus(c.duration);
+        if (c.start != null) decrement(starts, c.start);
+        if (c.end != null) decrement(ends, c.end);
+    }
 
-                if (s.getDuration() != null) total = total.plus(s.getDuration());
+    private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        multiset.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
 
-                LocalDateTime sStart = s.getStartTime();
-                LocalDateTime sEnd = s.getEndTime();
+    private void refresh() {
+        startTime = starts.isEmpty() ? null : starts.firstKey();
+        endTime = ends.isEmpty() ? null : ends.lastKey();
 
-                if (sStart != null) {
-                    minStart = (minStart == null || sStart.isBefore(minStart)) ? sStart : minStart;
-                }
-                if (sEnd != null) {
-                    maxEnd = (maxEnd == null || sEnd.isAfter(maxEnd)) ? sEnd : maxEnd;
-                }
-            }
+        if (countedSubTasks == 0 || statusCounts[TaskStatus.NEW.ordinal()] == countedSubTasks) {
+            status = TaskStatus.NEW;
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == countedSubTasks) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+    }
 
-            this.duration = total;
-            this.startTime = minStart;
-            this.endTime = maxEnd;
+    private record Contribution(TaskStatus status, LocalDateTime start, LocalDateTime end, Duration duration) {
+        private static final Contribution EMPTY = new Contribution(null, null, null, null);
+
+        private static Contribution of(SubTask s) {
+            return new Contribution(s.getStatus(), s.getStartTime(), s.getEndTime(), s.getDuration());
         }
     }
 }
-
@@ -12,6 +12,8 @@ public class Task {
     protected TaskType type;
     protected Duration duration;
     protected LocalDateTime startTime;
+    private int changes;
+    private LocalDateTime committedStartTime;
 
     public Task(int id, String title, String description) {
         this.id = id;
@@ -50,17 +52,51 @@ public class Task {
     }
 
     public void setTitle(String title) {
+        if (!Objects.equals(this.title, title)) markChanged(TaskField.TITLE);
         this.title = title;
     }
 
     public void setDescription(String description) {
+        if (!Objects.equals(this.description, description)) markChanged(TaskField.DESCRIPTION);
         this.description = description;
     }
 
     public void setStatus(TaskStatus status) {
+        if (this.status != status) markChanged(TaskField.STATUS);
         this.status = status;
     }
 
+    /**
+     * Маска полей ({@link TaskField#bit()}), изменённых сеттерами после последнего {@link #commitChanges()}.
+     */
+    public int getChanges() {
+        return changes;
+    }
+
+    public boolean isChanged(TaskField field) {
+        return (changes & field.bit()) != 0;
+    }
+
+    /**
+     * Фиксирует текущее состояние: менеджер вызывает его, когда все индексы обновлены.
+     */
+    public void commitChanges() {
+        changes = 0;
+        committedStartTime = startTime;
+    }
+
+    /**
+     * Время начала на момент последнего {@link #commitChanges()} — по нему задача лежит в расписании,
+     * даже если {@link #setStartTime} уже изменил её на месте.
+     */
+    public LocalDateTime getCommittedStartTime() {
+        return committedStartTime;
+    }
+
+    protected void markChanged(TaskField field) {
+        changes |= field.bit();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -79,6 +115,7 @@ public class Task {
     }
 
     public void setDuration(Duration duration) {
+        if (!Objects.equals(this.duration, duration)) markChanged(TaskField.DURATION);
         this.duration = duration;
     }
 
@@ -87,6 +124,7 @@ public class Task {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        if (!Objects.equals(this.startTime, startTime)) markChanged(TaskField.START_TIME);
         this.startTime = startTime;
     }
 
@@ -0,0 +1,23 @@
+package ru.kanban.task;
+
+/**
+ * Изменяемые поля задачи; используются как биты маски изменений ({@link Task#getChanges()}).
+ */
+public enum TaskField {
+    TITLE,
+    DESCRIPTION,
+    STATUS,
+    START_TIME,
+    DURATION;
+
+    public static final int ALL = (1 << values().length) - 1;
+    /**
+     * Поля, от которых зависят расписание и время эпика.
+     */
+    public static final int TIMING = START_TIME.bit() | DURATION.bit();
+    public static final int TEXT = TITLE.bit() | DESCRIPTION.bit();
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
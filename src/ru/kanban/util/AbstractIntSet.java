@@ -0,0 +1,43 @@
+package ru.kanban.util;
+
+import java.util.StringJoiner;
+
+public abstract class AbstractIntSet implements IntSet {
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int[] position = {0};
+        forEach(value -> result[position[0]++] = value);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntSet other)) return false;
+        if (other.size() != size()) return false;
+        boolean[] same = {true};
+        forEach(value -> same[0] &= other.contains(value));
+        return same[0];
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        forEach(value -> hash[0] += value);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(value -> joiner.add(Integer.toString(value)));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,348 @@
+package ru.kanban.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Потоковое чтение CSV по RFC 4180 поверх одного переиспользуемого буфера символов.
+ * Запись разбирается на границы полей внутри буфера; строки создаются только по запросу {@link #getString},
+ * а числа, перечисления и время разбираются прямо из буфера.
+ * Поле в кавычках может содержать запятые, переводы строк и удвоенные кавычки.
+ * Кавычка в середине поля без кавычек считается обычным символом.
+ * Ошибки разметки бросаются как {@link IllegalArgumentException}; текст записи доступен через {@link #recordText()}.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private char[] buffer;
+    private int limit;
+    private boolean eof;
+
+    private int pos;
+    private int recordStart;
+    private int recordEnd;
+    private int fieldStart;
+    private int count;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private boolean[] quoted = new boolean[16];
+    private long recordNumber;
+
+    public CsvReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buffer = new char[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Переходит к следующей записи; {@code false}, если данные кончились.
+     */
+    public boolean nextRecord() throws IOException {
+        count = 0;
+        recordStart = pos;
+        recordEnd = -1;
+        if (!available(0)) {
+            recordEnd = pos;
+            return false;
+        }
+        recordNumber++;
+        while (true) {
+            int terminator = readField();
+            if (terminator == ',') {
+                pos++;
+                continue;
+            }
+            recordEnd = pos;
+            if (terminator == '\r') {
+                pos++;
+                if (available(0) && buffer[pos] == '\n') {
+                    pos++;
+                }
+            } else if (terminator == '\n') {
+                pos++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Номер текущей записи, начиная с 1.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Исходный текст текущей записи, как он записан в файле, — для сообщений об ошибках.
+     */
+    public String recordText() {
+        int end = recordEnd >= 0 ? recordEnd : Math.min(pos, limit);
+        return new String(buffer, recordStart, end - recordStart);
+    }
+
+    public boolean isEmpty(int field) {
+        check(field);
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * Поле без кавычек из одних пробельных символов или пустое.
+     */
+    public boolean isBlank(int field) {
+        check(field);
+        if (quoted[field]) return false;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            if (!Character.isWhitespace(buffer[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Запись из одного пустого или пробельного поля — пустая строка файла.
+     */
+    public boolean isBlankRecord() {
+        return count == 1 && isBlank(0);
+    }
+
+    public boolean fieldEquals(int field, String value) {
+        check(field);
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (escaped[field] || length != value.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public String getString(int field) {
+        check(field);
+        int start = starts[field];
+        int end = ends[field];
+        if (!escaped[field]) {
+            return new String(buffer, start, end - start);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append(buffer[i]);
+            if (buffer[i] == '"') {
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Число вне диапазона int: " + value);
+        }
+        return (int) value;
+    }
+
+    public long getLong(int field) {
+        check(field);
+        return parseLong(starts[field], ends[field], field);
+    }
+
+    /**
+     * Константа перечисления, имя которой совпадает с полем.
+     */
+    public <E extends Enum<E>> E getEnum(int field, E[] constants) {
+        for (E constant : constants) {
+            if (fieldEquals(field, constant.name())) return constant;
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + getString(field));
+    }
+
+    /**
+     * Время в формате {@link LocalDateTime#toString()}: {@code uuuu-MM-ddTHH:mm[:ss[.n]]}.
+     * Четырёхзначный год разбирается прямо из буфера, остальное — через {@link LocalDateTime#parse}.
+     */
+    public LocalDateTime getDateTime(int field) {
+        check(field);
+        int s = starts[field];
+        int length = ends[field] - s;
+        if (escaped[field] || length < 16 || buffer[s + 4] != '-' || buffer[s + 7] != '-'
+                || buffer[s + 10] != 'T' || buffer[s + 13] != ':' || !isDigit(s)) {
+            return LocalDateTime.parse(getString(field));
+        }
+        int year = digits(s, 4, field);
+        int month = digits(s + 5, 2, field);
+        int day = digits(s + 8, 2, field);
+        int hour = digits(s + 11, 2, field);
+        int minute = digits(s + 14, 2, field);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || buffer[s + 16] != ':') throw badDateTime(field);
+            second = digits(s + 17, 2, field);
+            if (length > 19) {
+                int fraction = length - 20;
+                if (buffer[s + 19] != '.' || fraction < 1 || fraction > 9) throw badDateTime(field);
+                nano = digits(s + 20, fraction, field);
+                for (int i = fraction; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Разбирает поле с позиции {@code pos} и возвращает символ за ним: запятую, перевод строки или -1 в конце данных.
+     */
+    private int readField() throws IOException {
+        fieldStart = pos;
+        boolean inQuotes = available(0) && buffer[pos] == '"';
+        boolean hasEscapes = false;
+        int contentEnd;
+        if (inQuotes) {
+            pos++;
+            while (true) {
+                if (!available(0)) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в записи " + recordNumber);
+                }
+                if (buffer[pos] == '"') {
+                    if (available(1) && buffer[pos + 1] == '"') {
+                        hasEscapes = true;
+                        pos += 2;
+                        continue;
+                    }
+                    break;
+                }
+                pos++;
+            }
+            contentEnd = pos;
+            pos++;
+        } else {
+            while (available(0)) {
+                char c = buffer[pos];
+                if (c == ',' || c == '\n' || c == '\r') break;
+                pos++;
+            }
+            contentEnd = pos;
+        }
+        int terminator = available(0) ? buffer[pos] : -1;
+        if (inQuotes && terminator != -1 && terminator != ',' && terminator != '\n' && terminator != '\r') {
+            throw new IllegalArgumentException("Символ после закрывающей кавычки в записи " + recordNumber);
+        }
+        // Буфер мог сдвинуться при дочитывании, поэтому начало берётся из поля, а не из локальной переменной.
+        addField(inQuotes ? fieldStart + 1 : fieldStart, contentEnd, hasEscapes, inQuotes);
+        return terminator;
+    }
+
+    private void addField(int start, int end, boolean hasEscapes, boolean inQuotes) {
+        if (count == starts.length) {
+            int size = count * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            escaped = Arrays.copyOf(escaped, size);
+            quoted = Arrays.copyOf(quoted, size);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        escaped[count] = hasEscapes;
+        quoted[count] = inQuotes;
+        count++;
+    }
+
+    /**
+     * Есть ли в буфере символ {@code pos + ahead}; при необходимости сдвигает текущую запись в начало буфера
+     * (или расширяет его) и дочитывает данные.
+     */
+    private boolean available(int ahead) throws IOException {
+        while (pos + ahead >= limit) {
+            if (eof) return false;
+            if (recordStart > 0) {
+                int shift = recordStart;
+                System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+                limit -= shift;
+                pos -= shift;
+                recordStart = 0;
+                if (recordEnd >= 0) {
+                    recordEnd -= shift;
+                }
+                fieldStart -= shift;
+                for (int i = 0; i < count; i++) {
+                    starts[i] -= shift;
+                    ends[i] -= shift;
+                }
+            } else if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong(int start, int end, int field) {
+        if (start == end) throw new NumberFormatException("Пустое число");
+        boolean negative = buffer[start] == '-';
+        int i = negative || buffer[start] == '+' ? start + 1 : start;
+        if (i == end) throw badNumber(field);
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) throw badNumber(field);
+            if (value < (Long.MIN_VALUE + digit) / 10) throw badNumber(field);
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) throw badNumber(field);
+            value = -value;
+        }
+        return value;
+    }
+
+    private int digits(int start, int length, int field) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) throw badDateTime(field);
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private boolean isDigit(int index) {
+        return buffer[index] >= '0' && buffer[index] <= '9';
+    }
+
+    private NumberFormatException badNumber(int field) {
+        return new NumberFormatException("Некорректное число: " + getString(field));
+    }
+
+    private IllegalArgumentException badDateTime(int field) {
+        return new IllegalArgumentException("Некорректное время: " + getString(field));
+    }
+
+    private void check(int field) {
+        if (field < 0 || field >= count) {
+            throw new IndexOutOfBoundsException("Нет поля " + field + " в записи " + recordNumber);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ru.kanban.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковая запись CSV по RFC 4180 через собственный буфер символов.
+ * Поле берётся в кавычки, только если в нём есть запятая, кавычка или перевод строки;
+ * числа и время пишутся цифрами прямо в буфер, без промежуточных строк.
+ * Записи разделяются символом {@code \n}.
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final char[] buffer;
+    private final char[] digits = new char[20];
+    private int pos;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[Math.max(bufferSize, 32)];
+    }
+
+    /**
+     * Строковое поле; {@code null} пишется как пустое.
+     */
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null) return this;
+        if (!needsQuotes(value)) {
+            write(value);
+            return this;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return this;
+        }
+        ensure(digits.length);
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        System.arraycopy(digits, i, buffer, pos, digits.length - i);
+        pos += digits.length - i;
+        return this;
+    }
+
+    /**
+     * Время в том же виде, что {@link LocalDateTime#toString()}; {@code null} пишется как пустое поле.
+     */
+    public CsvWriter field(LocalDateTime value) throws IOException {
+        if (value == null) {
+            return emptyField();
+        }
+        int year = value.getYear();
+        if (year < 1000 || year > 9999) {
+            return field(value.toString());
+        }
+        separate();
+        ensure(29);
+        pad(year, 4);
+        buffer[pos++] = '-';
+        pad(value.getMonthValue(), 2);
+        buffer[pos++] = '-';
+        pad(value.getDayOfMonth(), 2);
+        buffer[pos++] = 'T';
+        pad(value.getHour(), 2);
+        buffer[pos++] = ':';
+        pad(value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[pos++] = ':';
+            pad(second, 2);
+            if (nano > 0) {
+                buffer[pos++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    pad(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    pad(nano / 1_000, 6);
+                } else {
+                    pad(nano, 9);
+                }
+            }
+        }
+        return this;
+    }
+
+    public CsvWriter emptyField() throws IOException {
+        separate();
+        return this;
+    }
+
+    public CsvWriter endRecord() throws IOException {
+        put('\n');
+        firstField = true;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void separate() throws IOException {
+        if (!firstField) {
+            put(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private void write(String value) throws IOException {
+        int length = value.length();
+        if (length > buffer.length) {
+            drain();
+            out.write(value);
+            return;
+        }
+        ensure(length);
+        value.getChars(0, length, buffer, pos);
+        pos += length;
+    }
+
+    private void pad(int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += width;
+    }
+
+    private void put(char c) throws IOException {
+        ensure(1);
+        buffer[pos++] = c;
+    }
+
+    private void ensure(int space) throws IOException {
+        if (buffer.length - pos < space) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+}
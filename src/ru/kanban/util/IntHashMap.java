@@ -0,0 +1,270 @@
+package ru.kanban.util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Хеш-таблица с ключами int без упаковки: открытая адресация, линейное пробирование,
+ * удаление сдвигом назад (без «надгробий»). Значения null не допускаются — ими помечены пустые ячейки.
+ */
+public class IntHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+    private long version;
+
+    public IntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public V get(int key) {
+        int slot = find(key);
+        return slot < 0 ? null : valueAt(slot);
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = index(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = valueAt(slot);
+                values[slot] = value;
+                version++;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        modCount++;
+        version++;
+        if (++size > resizeAt) {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    public V putIfAbsent(int key, V value) {
+        V current = get(key);
+        return current != null ? current : put(key, value);
+    }
+
+    public V remove(int key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        V removed = valueAt(slot);
+        removeAt(slot);
+        return removed;
+    }
+
+    public void clear() {
+        if (size == 0 && values.length == MIN_CAPACITY) return;
+        allocate(MIN_CAPACITY);
+        size = 0;
+        modCount++;
+        version++;
+    }
+
+    public void forEach(EntryConsumer<? super V> action) {
+        int expected = modCount;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                action.accept(keys[slot], valueAt(slot));
+            }
+        }
+        if (expected != modCount) throw new ConcurrentModificationException();
+    }
+
+    public void replaceAll(EntryFunction<V> function) {
+        int expected = modCount;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                values[slot] = Objects.requireNonNull(function.apply(keys[slot], valueAt(slot)), "value");
+            }
+        }
+        if (expected != modCount) throw new ConcurrentModificationException();
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    V at(int slot) {
+                        return valueAt(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public IntSet keySet() {
+        return new AbstractIntSet() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(int value) {
+                return containsKey(value);
+            }
+
+            @Override
+            public void forEach(IntConsumer action) {
+                int expected = modCount;
+                for (int slot = 0; slot < values.length; slot++) {
+                    if (values[slot] != null) {
+                        action.accept(keys[slot]);
+                    }
+                }
+                if (expected != modCount) throw new ConcurrentModificationException();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private int find(int key) {
+        int slot = index(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int slot) {
+        int gap = slot;
+        int i = (gap + 1) & mask;
+        while (values[i] != null) {
+            int ideal = index(keys[i]);
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        modCount++;
+        version++;
+    }
+
+    private int index(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = index(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 4 * 3;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expected = modCount;
+        private int next = advance(0);
+
+        abstract T at(int slot);
+
+        private int advance(int from) {
+            int slot = from;
+            while (slot < values.length && values[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public T next() {
+            if (expected != modCount) throw new ConcurrentModificationException();
+            if (!hasNext()) throw new NoSuchElementException();
+            T result = at(next);
+            next = advance(next + 1);
+            return result;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    @FunctionalInterface
+    public interface EntryFunction<V> {
+        V apply(int key, V value);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.kanban.util;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public interface IntSet {
+    int size();
+
+    boolean isEmpty();
+
+    boolean contains(int value);
+
+    void forEach(IntConsumer action);
+
+    int[] toArray();
+
+    default IntStream stream() {
+        return IntStream.of(toArray());
+    }
+}
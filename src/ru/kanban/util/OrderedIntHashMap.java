@@ -0,0 +1,189 @@
+package ru.kanban.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link IntHashMap}, который дополнительно умеет обходить записи по возрастанию ключа.
+ * Ключи хранятся ещё и в отсортированном массиве: новые id обычно больше прежних и дописываются в конец,
+ * остальные вставляются двоичным поиском. Удалённый ключ остаётся в массиве и пропускается при обходе,
+ * пока таких ключей не станет больше, чем живых, — тогда массив уплотняется.
+ * Память пропорциональна числу записей, а не величине ключей; чтение массив не меняет.
+ */
+public class OrderedIntHashMap<V> extends IntHashMap<V> {
+
+    private static final int MIN_ORDER_CAPACITY = 8;
+
+    private int[] order = new int[MIN_ORDER_CAPACITY];
+    private int orderSize;
+    private int removedKeys;
+    private int modCount;
+
+    public OrderedIntHashMap() {
+    }
+
+    public OrderedIntHashMap(int expectedSize) {
+        super(expectedSize);
+        order = new int[Math.max(expectedSize, MIN_ORDER_CAPACITY)];
+    }
+
+    @Override
+    public V put(int key, V value) {
+        V previous = super.put(key, value);
+        if (previous == null) {
+            addKey(key);
+            modCount++;
+        }
+        return previous;
+    }
+
+    @Override
+    public V remove(int key) {
+        V removed = super.remove(key);
+        if (removed != null) {
+            if (++removedKeys > size()) {
+                compact();
+            }
+            modCount++;
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        order = new int[MIN_ORDER_CAPACITY];
+        orderSize = 0;
+        removedKeys = 0;
+        modCount++;
+    }
+
+    /**
+     * Ключи по возрастанию.
+     */
+    @Override
+    public IntSet keySet() {
+        return new AbstractIntSet() {
+            @Override
+            public int size() {
+                return OrderedIntHashMap.this.size();
+            }
+
+            @Override
+            public boolean contains(int value) {
+                return containsKey(value);
+            }
+
+            @Override
+            public void forEach(IntConsumer action) {
+                int expected = modCount;
+                int[] keys = order;
+                int count = orderSize;
+                for (int i = 0; i < count; i++) {
+                    if (containsKey(keys[i])) {
+                        action.accept(keys[i]);
+                    }
+                }
+                if (expected != modCount) throw new ConcurrentModificationException();
+            }
+        };
+    }
+
+    /**
+     * Не более {@code limit} значений с ключами больше {@code afterKey}, по возрастанию ключа.
+     */
+    public List<V> page(int afterKey, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным: " + limit);
+        }
+        List<V> result = new ArrayList<>(Math.min(limit, size()));
+        int found = Arrays.binarySearch(order, 0, orderSize, afterKey);
+        for (int i = found >= 0 ? found + 1 : -found - 1; i < orderSize && result.size() < limit; i++) {
+            V value = get(order[i]);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Значения по возрастанию ключа; при изменении карты во время обхода бросает
+     * {@link ConcurrentModificationException}.
+     */
+    public Iterator<V> orderedIterator() {
+        return new Iterator<>() {
+            private final int expected = modCount;
+            private int position = present(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < orderSize;
+            }
+
+            @Override
+            public V next() {
+                if (expected != modCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                V value = get(order[position]);
+                position = present(position + 1);
+                return value;
+            }
+        };
+    }
+
+    public Stream<V> orderedStream() {
+        return StreamSupport.stream(Spliterators.spliterator(orderedIterator(), size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private int present(int from) {
+        int i = from;
+        while (i < orderSize && !containsKey(order[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private void addKey(int key) {
+        int at = orderSize;
+        if (orderSize > 0 && key <= order[orderSize - 1]) {
+            int found = Arrays.binarySearch(order, 0, orderSize, key);
+            if (found >= 0) {
+                // Ключ удаляли, но он ещё лежит в массиве на своём месте.
+                removedKeys--;
+                return;
+            }
+            at = -found - 1;
+        }
+        if (orderSize == order.length) {
+            order = Arrays.copyOf(order, orderSize * 2);
+        }
+        System.arraycopy(order, at, order, at + 1, orderSize - at);
+        order[at] = key;
+        orderSize++;
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < orderSize; i++) {
+            if (containsKey(order[i])) {
+                order[kept++] = order[i];
+            }
+        }
+        orderSize = kept;
+        removedKeys = 0;
+        if (order.length > MIN_ORDER_CAPACITY && order.length > kept * 4) {
+            order = Arrays.copyOf(order, Math.max(kept * 2, MIN_ORDER_CAPACITY));
+        }
+    }
+}
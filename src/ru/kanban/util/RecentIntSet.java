@@ -0,0 +1,73 @@
+package ru.kanban.util;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int в порядке последнего добавления: повторное {@link #add} переносит значение в конец.
+ * Значения дописываются в журнал, а словарь помнит последнюю позицию каждого; устаревшие позиции
+ * пропускаются при обходе и выбрасываются, когда их становится больше, чем живых значений.
+ */
+public class RecentIntSet extends AbstractIntSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final IntIntHashMap positions = new IntIntHashMap();
+    private int[] log = new int[MIN_CAPACITY];
+    private int logSize;
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return positions.containsKey(value);
+    }
+
+    public void add(int value) {
+        if (logSize == log.length) {
+            if (logSize > 2 * positions.size()) {
+                compact();
+            } else {
+                int[] grown = new int[log.length * 2];
+                System.arraycopy(log, 0, grown, 0, logSize);
+                log = grown;
+            }
+        }
+        log[logSize] = value;
+        positions.put(value, logSize++);
+    }
+
+    public void clear() {
+        positions.clear();
+        logSize = 0;
+        if (log.length > MIN_CAPACITY) {
+            log = new int[MIN_CAPACITY];
+        }
+    }
+
+    /**
+     * Обходит значения от давно добавленных к недавним.
+     */
+    @Override
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < logSize; i++) {
+            if (positions.getOrDefault(log[i], -1) == i) {
+                action.accept(log[i]);
+            }
+        }
+    }
+
+    private void compact() {
+        int size = 0;
+        for (int i = 0; i < logSize; i++) {
+            int value = log[i];
+            if (positions.getOrDefault(value, -1) == i) {
+                log[size] = value;
+                positions.put(value, size++);
+            }
+        }
+        logSize = size;
+    }
+}
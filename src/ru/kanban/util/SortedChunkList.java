@@ -0,0 +1,232 @@
+package ru.kanban.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Неизменяемый список значений, упорядоченных по ключу.
+ * Записи лежат кусками до {@code 2 * CHUNK} штук: {@link #with} и {@link #without} копируют только
+ * затронутый кусок и массив ссылок на куски, а остальные куски делят с прежним списком.
+ * Поэтому изменение стоит O(CHUNK + n / CHUNK), а прежний список остаётся пригодным для чтения.
+ */
+public final class SortedChunkList<K extends Comparable<? super K>, V> extends AbstractList<V>
+        implements RandomAccess {
+
+    static final int CHUNK = 64;
+
+    private static final SortedChunkList<?, ?> EMPTY = new SortedChunkList<>(new Object[0][], new Object[0][]);
+
+    private final Object[][] keys;
+    private final Object[][] values;
+    private final int[] starts;
+    private final int size;
+
+    private SortedChunkList(Object[][] keys, Object[][] values) {
+        this.keys = keys;
+        this.values = values;
+        this.starts = new int[keys.length];
+        int total = 0;
+        for (int c = 0; c < keys.length; c++) {
+            starts[c] = total;
+            total += keys[c].length;
+        }
+        this.size = total;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> SortedChunkList<K, V> empty() {
+        return (SortedChunkList<K, V>) EMPTY;
+    }
+
+    /**
+     * Список из пар, уже упорядоченных по возрастанию ключа, за один проход.
+     */
+    public static <K extends Comparable<? super K>, V> SortedChunkList<K, V> ofSorted(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Ключей " + keys.size() + ", значений " + values.size());
+        }
+        int chunks = (keys.size() + CHUNK - 1) / CHUNK;
+        Object[][] chunkKeys = new Object[chunks][];
+        Object[][] chunkValues = new Object[chunks][];
+        for (int c = 0; c < chunks; c++) {
+            int from = c * CHUNK;
+            int to = Math.min(from + CHUNK, keys.size());
+            chunkKeys[c] = keys.subList(from, to).toArray();
+            chunkValues[c] = values.subList(from, to).toArray();
+        }
+        return new SortedChunkList<>(chunkKeys, chunkValues);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " при размере " + size);
+        }
+        // Куски непустые, поэтому начала кусков различны.
+        int c = Arrays.binarySearch(starts, index);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        return (V) values[c][index - starts[c]];
+    }
+
+    /**
+     * Список, где ключу {@code key} соответствует {@code value}; если так уже есть — этот же список.
+     */
+    public SortedChunkList<K, V> with(K key, V value) {
+        if (keys.length == 0) {
+            return new SortedChunkList<>(new Object[][]{{key}}, new Object[][]{{value}});
+        }
+        int c = chunkOf(key);
+        Object[] chunkKeys = keys[c];
+        int i = search(chunkKeys, key);
+        if (i >= 0) {
+            if (values[c][i] == value) return this;
+            Object[] chunkValues = values[c].clone();
+            chunkValues[i] = value;
+            Object[][] nextValues = values.clone();
+            nextValues[c] = chunkValues;
+            return new SortedChunkList<>(keys, nextValues);
+        }
+        i = -i - 1;
+        Object[] grownKeys = insert(chunkKeys, i, key);
+        Object[] grownValues = insert(values[c], i, value);
+        if (grownKeys.length <= 2 * CHUNK) {
+            Object[][] nextKeys = keys.clone();
+            Object[][] nextValues = values.clone();
+            nextKeys[c] = grownKeys;
+            nextValues[c] = grownValues;
+            return new SortedChunkList<>(nextKeys, nextValues);
+        }
+        int half = grownKeys.length / 2;
+        return new SortedChunkList<>(
+                split(keys, c, Arrays.copyOf(grownKeys, half), Arrays.copyOfRange(grownKeys, half, grownKeys.length)),
+                split(values, c, Arrays.copyOf(grownValues, half),
+                        Arrays.copyOfRange(grownValues, half, grownValues.length)));
+    }
+
+    /**
+     * Список без ключа {@code key}; если ключа нет — этот же список.
+     * Кусок, ставший меньше {@code CHUNK / 2}, сливается с соседним, если вместе они не превысят предел.
+     */
+    public SortedChunkList<K, V> without(K key) {
+        if (keys.length == 0) return this;
+        int c = chunkOf(key);
+        int i = search(keys[c], key);
+        if (i < 0) return this;
+        Object[] shrunkKeys = remove(keys[c], i);
+        Object[] shrunkValues = remove(values[c], i);
+        if (shrunkKeys.length == 0) {
+            return new SortedChunkList<>(drop(keys, c), drop(values, c));
+        }
+        if (shrunkKeys.length < CHUNK / 2 && keys.length > 1) {
+            int left = c + 1 < keys.length ? c : c - 1;
+            int right = left + 1;
+            Object[] leftKeys = left == c ? shrunkKeys : keys[left];
+            Object[] rightKeys = right == c ? shrunkKeys : keys[right];
+            if (leftKeys.length + rightKeys.length <= 2 * CHUNK) {
+                Object[] leftValues = left == c ? shrunkValues : values[left];
+                Object[] rightValues = right == c ? shrunkValues : values[right];
+                return new SortedChunkList<>(merge(keys, left, concat(leftKeys, rightKeys)),
+                        merge(values, left, concat(leftValues, rightValues)));
+            }
+        }
+        Object[][] nextKeys = keys.clone();
+        Object[][] nextValues = values.clone();
+        nextKeys[c] = shrunkKeys;
+        nextValues[c] = shrunkValues;
+        return new SortedChunkList<>(nextKeys, nextValues);
+    }
+
+    /**
+     * Последний кусок, чей первый ключ не больше {@code key}, или первый кусок.
+     */
+    private int chunkOf(K key) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (compare(keys[mid][0], key) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int search(Object[] chunkKeys, K key) {
+        int low = 0;
+        int high = chunkKeys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(chunkKeys[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object stored, K key) {
+        return ((K) stored).compareTo(key);
+    }
+
+    private static Object[] insert(Object[] array, int index, Object value) {
+        Object[] result = new Object[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    private static Object[] remove(Object[] array, int index) {
+        Object[] result = new Object[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    private static Object[] concat(Object[] left, Object[] right) {
+        Object[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static Object[][] split(Object[][] chunks, int index, Object[] first, Object[] second) {
+        Object[][] result = new Object[chunks.length + 1][];
+        System.arraycopy(chunks, 0, result, 0, index);
+        result[index] = first;
+        result[index + 1] = second;
+        System.arraycopy(chunks, index + 1, result, index + 2, chunks.length - index - 1);
+        return result;
+    }
+
+    private static Object[][] merge(Object[][] chunks, int index, Object[] merged) {
+        Object[][] result = new Object[chunks.length - 1][];
+        System.arraycopy(chunks, 0, result, 0, index);
+        result[index] = merged;
+        System.arraycopy(chunks, index + 2, result, index + 1, chunks.length - index - 2);
+        return result;
+    }
+
+    private static Object[][] drop(Object[][] chunks, int index) {
+        Object[][] result = new Object[chunks.length - 1][];
+        System.arraycopy(chunks, 0, result, 0, index);
+        System.arraycopy(chunks, index + 1, result, index, chunks.length - index - 1);
+        return result;
+    }
+}
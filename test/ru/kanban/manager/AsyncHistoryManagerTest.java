@@ -0,0 +1,73 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+
+    private final AsyncHistoryManager history =
+            AsyncHistoryManager.start(Managers.getHistory(100, EvictionPolicy.LRU), 8);
+
+    @AfterEach
+    void tearDown() {
+        history.close();
+    }
+
+    @Test
+    void flush_appliesQueuedViewsInOrder() {
+        Task t1 = new Task(1, "t1", "d");
+        Task t2 = new Task(2, "t2", "d");
+        history.add(t1);
+        history.add(t2);
+        history.add(t1);
+
+        history.flush();
+        assertEquals(List.of(t2, t1), history.getHistory());
+    }
+
+    @Test
+    void remove_appliesPendingViewsFirst() {
+        TaskManager manager = new InMemoryTaskManager(history);
+        Task t = manager.createTask("T", "d");
+        manager.getTask(t.getId());
+        manager.removeTask(t.getId());
+
+        assertTrue(manager.getHistory().isEmpty());
+    }
+
+    @Test
+    void concurrentProducers_overflowingTheQueue_loseNoViews() throws InterruptedException {
+        int producers = 4;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    history.add(new Task(producer * 25 + i, "t", "d"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, history.getHistory().size());
+    }
+
+    @Test
+    void add_afterClose_isApplied() {
+        history.close();
+        Task t = new Task(1, "t1", "d");
+        history.add(t);
+
+        assertEquals(List.of(t), history.getHistory());
+    }
+}
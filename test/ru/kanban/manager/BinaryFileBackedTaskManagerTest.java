@@ -0,0 +1,37 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFileBackedTaskManagerTest extends FileBackedTaskManagerTest {
+
+    @Override
+    protected SnapshotFormat format() {
+        return SnapshotFormat.BINARY;
+    }
+
+    @Test
+    void saveAndLoad_keepsCommasNullsAndSubMinuteTime() {
+        Task t = manager.createTask("a, b, c", "строка\\nс переносом");
+        t.setStartTime(LocalDateTime.of(1960, 5, 1, 8, 15, 7, 123));
+        t.setDuration(Duration.ofSeconds(90));
+        manager.updateTask(t);
+        Epic e = manager.createEpic("E", "d");
+        manager.addSubTask(new SubTask(-5, null, "d", e.getId()));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        Task restored = loaded.getTask(t.getId());
+        assertEquals("a, b, c", restored.getTitle());
+        assertEquals(t.getStartTime(), restored.getStartTime());
+        assertEquals(Duration.ofSeconds(90), restored.getDuration());
+        assertNull(loaded.getSubTask(-5).getTitle());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> jobs) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> f : pool.invokeAll(jobs)) {
+                results.add(f.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentSubtaskUpdates_onDifferentEpics_keepIdsUniqueAndEpicsConsistent() throws Exception {
+        List<Callable<Epic>> jobs = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            jobs.add(() -> {
+                Epic e = manager.createEpic("E", "d");
+                for (int i = 0; i < 500; i++) {
+                    SubTask s = manager.createSubTask("S" + i, "d", e.getId());
+                    s.setStatus(TaskStatus.DONE);
+                    manager.updateSubTask(s);
+                }
+                return e;
+            });
+        }
+
+        List<Epic> epics = runConcurrently(jobs);
+
+        Set<Integer> ids = new HashSet<>();
+        manager.getAllSubTasks().forEach(s -> ids.add(s.getId()));
+        manager.getAllEpics().forEach(e -> ids.add(e.getId()));
+        assertEquals(THREADS * 501, ids.size());
+        for (Epic e : epics) {
+            assertEquals(500, manager.getSubTasksOfEpic(e.getId()).size());
+            assertEquals(TaskStatus.DONE, e.getStatus());
+        }
+    }
+
+    @Test
+    void concurrentOverlappingTasks_onlyOneIsScheduled() throws Exception {
+        List<Callable<Boolean>> jobs = new ArrayList<>();
+        AtomicInteger nextId = new AtomicInteger(1000);
+        for (int t = 0; t < THREADS * 4; t++) {
+            jobs.add(() -> {
+                Task task = new Task(nextId.getAndIncrement(), "T", "d");
+                plan(task, 2025, 1, 1, 10, 0, 60);
+                try {
+                    manager.addTask(task);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            });
+        }
+
+        List<Boolean> results = runConcurrently(jobs);
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    void createsRacingClearAll_neverReuseIds_andLeaveNoStaleIndexEntries() throws Exception {
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            jobs.add(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    manager.createTask("Задача", "d");
+                }
+                return null;
+            });
+        }
+        jobs.add(() -> {
+            for (int i = 0; i < 50; i++) {
+                manager.clearAll();
+            }
+            return null;
+        });
+
+        runConcurrently(jobs);
+        Task last = manager.createTask("Задача", "d");
+
+        List<Task> tasks = manager.getAllTasks();
+        assertEquals(new HashSet<>(tasks), new HashSet<>(manager.search("задача", Integer.MAX_VALUE)));
+        assertEquals(tasks.size(), (int) manager.countByStatus().get(TaskStatus.NEW));
+        assertEquals((THREADS - 1) * 2000, last.getId());
+    }
+
+    @Test
+    void updateSubTask_withAnotherEpicId_isRejected() {
+        Epic first = manager.createEpic("E1", "d");
+        Epic second = manager.createEpic("E2", "d");
+        SubTask s = manager.createSubTask("S", "d", first.getId());
+        SubTask moved = new SubTask(s.getId(), "S", "d", TaskStatus.DONE, second.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.updateSubTask(moved));
+        assertSame(s, manager.getSubTask(s.getId()));
+        assertEquals(List.of(s), manager.getSubTasksOfEpic(first.getId()));
+        assertTrue(manager.getSubTasksOfEpic(second.getId()).isEmpty());
+    }
+
+    @Test
+    void snapshots_areConsistent_andShareUnchangedLists_underConcurrentWrites() throws Exception {
+        Epic kept = manager.createEpic("Постоянный", "d");
+        BoardSnapshot before = manager.getSnapshot();
+        manager.createTask("T", "d");
+        assertSame(before.getEpics(), manager.getSnapshot().getEpics());
+        manager.removeEpic(kept.getId());
+
+        AtomicInteger torn = new AtomicInteger();
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            jobs.add(() -> {
+                for (int i = 0; i < 300; i++) {
+                    Epic e = manager.createEpic("E", "d");
+                    manager.createSubTask("S1", "d", e.getId());
+                    manager.createSubTask("S2", "d", e.getId());
+                    manager.removeEpic(e.getId());
+                }
+                return null;
+            });
+        }
+        jobs.add(() -> {
+            for (int i = 0; i < 2000; i++) {
+                BoardSnapshot snapshot = manager.getSnapshot();
+                Set<Integer> epicIds = new HashSet<>();
+                snapshot.getEpics().forEach(e -> epicIds.add(e.getId()));
+                for (SubTask s : snapshot.getSubTasks()) {
+                    if (!epicIds.contains(s.getEpicId())) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }
+            return null;
+        });
+
+        runConcurrently(jobs);
+
+        assertEquals(0, torn.get());
+        assertTrue(manager.getAllEpics().isEmpty());
+        assertTrue(manager.getAllSubTasks().isEmpty());
+    }
+}
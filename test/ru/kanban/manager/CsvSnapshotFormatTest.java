@@ -0,0 +1,111 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvSnapshotFormatTest {
+
+    // Любой файл читается параллельно, куски по 64 байта.
+    private final CsvSnapshotFormat parallel = new CsvSnapshotFormat(0, 64);
+    private final CsvSnapshotFormat sequential = new CsvSnapshotFormat(Integer.MAX_VALUE, 64);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelRead_returnsSameTasksInFileOrder_asSequential() throws IOException {
+        Path file = tempDir.resolve("board.csv");
+        sequential.write(file, 7, board(), new int[]{3, 1, 2});
+
+        List<String> expected = new ArrayList<>();
+        List<Integer> expectedHistory = new ArrayList<>();
+        long expectedGeneration = sequential.read(file, t -> expected.add(CsvSnapshotFormat.toLine(t)),
+                expectedHistory::add);
+
+        List<String> actual = new ArrayList<>();
+        List<Integer> actualHistory = new ArrayList<>();
+        long actualGeneration = parallel.read(file, t -> actual.add(CsvSnapshotFormat.toLine(t)), actualHistory::add);
+
+        assertEquals(7, actualGeneration);
+        assertEquals(expectedGeneration, actualGeneration);
+        assertEquals(203, actual.size());
+        assertEquals(expected, actual);
+        assertEquals(List.of(3, 1, 2), actualHistory);
+        assertEquals(expectedHistory, actualHistory);
+    }
+
+    @Test
+    void parallelRead_reportsSameBadLine_asSequential() throws IOException {
+        Path file = tempDir.resolve("board.csv");
+        sequential.write(file, 1, board(), new int[0]);
+        String text = Files.readString(file)
+                .replace("\n150,TASK,", "\n150,TASK,broken,NEW,d,,,\nx150,TASK,")
+                .replace("\n170,TASK,", "\nx170,TASK,");
+        Files.writeString(file, text);
+
+        ManagerSaveException expected = assertThrows(ManagerSaveException.class,
+                () -> sequential.read(file, t -> { }));
+        List<Task> received = new ArrayList<>();
+        ManagerSaveException actual = assertThrows(ManagerSaveException.class,
+                () -> parallel.read(file, received::add));
+
+        assertTrue(expected.getMessage().startsWith("Ошибка при разборе строки: x150,TASK,"));
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(150, received.size());
+    }
+
+    @Test
+    void parallelRead_fallsBackForLegacyAndBlankLines() throws IOException {
+        Path legacy = tempDir.resolve("legacy.csv");
+        Files.writeString(legacy, "id,type,title,status,description,startTime,durationInMinutes,epicId\n"
+                + "1,TASK,\"a\nb\",NEW,d,,,\n2,EPIC,E,NEW,d,,,\n3,SUBTASK,S,DONE,d,,,2\n\nhistory,3\n");
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> history = new ArrayList<>();
+
+        assertEquals(0, parallel.read(legacy, tasks::add, history::add));
+        assertEquals(3, tasks.size());
+        assertEquals("a\nb", tasks.get(0).getTitle());
+        assertEquals(List.of(3), history);
+
+        Path blank = tempDir.resolve("blank.csv");
+        Files.writeString(blank, "id,type,title,status,description,startTime,durationInMinutes,epicId\n"
+                + "generation,4\n1,TASK,A,NEW,d,,,\n\n2,TASK,B,NEW,d,,,\n\nhistory,1\n");
+        tasks.clear();
+
+        assertEquals(4, parallel.read(blank, tasks::add));
+        assertEquals(1, tasks.size());
+    }
+
+    private static BoardSnapshot board() {
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<SubTask> subTasks = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            String title = i % 7 == 0 ? "Задача, \"с кавычками\"\nи переводом " + i : "Задача " + i;
+            Task task = new Task(i, title, "описание " + i, TaskStatus.NEW);
+            if (i % 3 == 0) {
+                task.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i));
+                task.setDuration(Duration.ofMinutes(30));
+            }
+            tasks.add(task);
+        }
+        epics.add(new Epic(201, "Эпик", "\n\n"));
+        subTasks.add(new SubTask(202, "Подзадача 1", "d", TaskStatus.DONE, 201));
+        subTasks.add(new SubTask(203, "Подзадача 2", "d", TaskStatus.NEW, 201));
+        return new BoardSnapshot(0, tasks, epics, subTasks, List.of());
+    }
+}
@@ -10,8 +10,11 @@ import ru.kanban.task.TaskStatus;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,14 +22,22 @@ import static org.junit.jupiter.api.Assertions.*;
 public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
     @TempDir
-    private Path tempDir;
-    private Path tempPath;
+    protected Path tempDir;
+    protected Path tempPath;
 
     @Override
     protected FileBackedTaskManager createManager() throws IOException {
         tempPath = tempDir.resolve("kanban-test.csv");
         Files.createFile(tempPath);
-        return new FileBackedTaskManager(tempPath);
+        return new FileBackedTaskManager(tempPath, format(), writeBehind());
+    }
+
+    protected SnapshotFormat format() {
+        return SnapshotFormat.CSV;
+    }
+
+    protected WriteBehind writeBehind() {
+        return null;
     }
 
     @Test
@@ -143,6 +154,276 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEquals(TaskStatus.IN_PROGRESS, loaded.getEpic(e.getId()).getStatus());
     }
 
+    private Path journalPath() {
+        return tempPath.resolveSibling(tempPath.getFileName() + ".journal");
+    }
+
+    @Test
+    void mutations_appendToJournal_withoutRewritingSnapshot() throws IOException {
+        Task t = manager.createTask("T", "d");
+        byte[] snapshot = Files.readAllBytes(tempPath);
+        long journalSize = Files.size(journalPath());
+
+        t.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(t);
+        Epic e = manager.createEpic("E", "d");
+        manager.createSubTask("S", "d", e.getId());
+
+        assertArrayEquals(snapshot, Files.readAllBytes(tempPath));
+        assertTrue(Files.size(journalPath()) > journalSize);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTask(t.getId()).getStatus());
+        assertEquals(1, loaded.getSubTasksOfEpic(e.getId()).size());
+    }
+
+    @Test
+    void updateWithoutChanges_isNotJournaled() throws IOException {
+        Task t = manager.createTask("T", "d");
+        long journalSize = Files.size(journalPath());
+
+        manager.updateTask(t);
+        t.setStatus(TaskStatus.NEW);
+        manager.updateTask(t);
+        assertEquals(journalSize, Files.size(journalPath()));
+
+        t.setStatus(TaskStatus.DONE);
+        manager.updateTask(t);
+        assertTrue(Files.size(journalPath()) > journalSize);
+    }
+
+    @Test
+    void removingUnknownIds_isNotJournaled() throws IOException {
+        Task t = manager.createTask("T", "d");
+        manager.flush();
+        long journalSize = Files.size(journalPath());
+
+        manager.removeTask(t.getId() + 100);
+        manager.removeSubTask(t.getId() + 100);
+        manager.removeEpic(t.getId() + 100);
+        manager.removeEpic(t.getId());
+        manager.flush();
+        assertEquals(journalSize, Files.size(journalPath()));
+
+        manager.removeTask(t.getId());
+        manager.flush();
+        assertTrue(Files.size(journalPath()) > journalSize);
+        assertNull(FileBackedTaskManager.loadFromFile(tempPath).getTask(t.getId()));
+    }
+
+    @Test
+    void journaledEpic_keepsItsSubtasks_afterReload() {
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        s.setStatus(TaskStatus.DONE);
+        manager.updateSubTask(s);
+        manager.addEpic(e);
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(List.of(s), loaded.getSubTasksOfEpic(e.getId()));
+        assertEquals(TaskStatus.DONE, loaded.getEpic(e.getId()).getStatus());
+    }
+
+    @Test
+    void searchAfterReload_ranksLikeIncrementalIndex() {
+        manager.createTask("Ёлка ёлка", "купить ёлку");
+        manager.createTask("Игрушки", "ёлочные, ёлка");
+        Epic e = manager.createEpic("Праздник", "ёлка и гирлянда ёлка");
+        manager.createSubTask("Гирлянда", "ёлка", e.getId());
+        manager.createTask("Ёлка", "");
+        List<Task> expected = manager.search("ёл", 10);
+        List<Task> expectedPair = manager.search("ёлка гирл", 10);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+
+        assertEquals(5, expected.size());
+        assertEquals(expected, loaded.search("ёл", 10));
+        assertEquals(expectedPair, loaded.search("ёлка гирл", 10));
+        assertEquals(expected.subList(0, 2), loaded.search("ел", 2));
+    }
+
+    @Test
+    void journalReplay_appliesRemovalsAndClear() {
+        Task t = manager.createTask("T", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        manager.removeTask(t.getId());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertNull(loaded.getTask(t.getId()));
+        assertNotNull(loaded.getSubTask(s.getId()));
+
+        manager.removeEpic(e.getId());
+        loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertNull(loaded.getEpic(e.getId()));
+        assertNull(loaded.getSubTask(s.getId()));
+
+        manager.createTask("T2", "d");
+        manager.clearAll();
+        loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertTrue(loaded.getAllEpics().isEmpty());
+    }
+
+    @Test
+    void loadFromFile_rebuildsStatusIndex() {
+        Task t = manager.createTask("T", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        manager.save();
+        t.setStatus(TaskStatus.DONE);
+        manager.updateTask(t);
+        s.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubTask(s);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+
+        assertEquals(List.of(t), loaded.getByStatus(TaskStatus.DONE));
+        assertEquals(List.of(e, s), loaded.getByStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(manager.countByStatus(), loaded.countByStatus());
+    }
+
+    @Test
+    void loadFromFile_rebuildsSearchIndex() {
+        Task t = manager.createTask("Купить хлеб", "d");
+        manager.save();
+        t.setTitle("Купить молоко");
+        manager.updateTask(t);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+
+        assertEquals(List.of(t), loaded.search("молок", 5));
+        assertTrue(loaded.search("хлеб", 5).isEmpty());
+    }
+
+    @Test
+    void journalReplay_appliesBulkRemovals() {
+        manager.createTask("T", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        s.setStatus(TaskStatus.DONE);
+        manager.updateSubTask(s);
+
+        manager.removeAllTasks();
+        manager.removeAllSubTasks();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertTrue(loaded.getAllSubTasks().isEmpty());
+        assertEquals(TaskStatus.NEW, loaded.getEpic(e.getId()).getStatus());
+    }
+
+    @Test
+    void loadFromFile_ignoresTornJournalTail_andKeepsAppending() throws IOException {
+        Task t = manager.createTask("T", "d");
+        manager.close();
+        Files.writeString(journalPath(), "PUT,99,TASK,Брошенная", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertNotNull(loaded.getTask(t.getId()));
+        assertNull(loaded.getTask(99));
+
+        Task next = loaded.createTask("N", "d");
+        loaded.close();
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertNotNull(reloaded.getTask(next.getId()));
+        assertNotEquals(t.getId(), next.getId());
+    }
+
+    @Test
+    void titlesWithCommasQuotesAndNewlines_surviveSnapshotAndJournal() throws IOException {
+        Task inSnapshot = manager.createTask("a, \"b\"", "line 1\nline 2");
+        Task inJournal = manager.createTask("c,\r\nd", "\"quoted\", text");
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals("a, \"b\"", loaded.getTask(inSnapshot.getId()).getTitle());
+        assertEquals("line 1\nline 2", loaded.getTask(inSnapshot.getId()).getDescription());
+        assertEquals("c,\r\nd", loaded.getTask(inJournal.getId()).getTitle());
+        assertEquals("\"quoted\", text", loaded.getTask(inJournal.getId()).getDescription());
+        loaded.close();
+
+        Files.writeString(journalPath(), "PUT,99,TASK,\"torn\ntitle", StandardOpenOption.APPEND);
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertNull(reloaded.getTask(99));
+        assertEquals(2, reloaded.getAllTasks().size());
+    }
+
+    @Test
+    void journal_isCompactedIntoSnapshot_whenItOutgrowsTheBoard() throws IOException {
+        Task t = manager.createTask("T", "d");
+        for (int i = 0; i <= FileBackedTaskManager.MIN_COMPACTION_RECORDS; i++) {
+            t.setDescription("d" + i);
+            manager.updateTask(t);
+        }
+
+        assertTrue(Files.readAllLines(journalPath()).size() < FileBackedTaskManager.MIN_COMPACTION_RECORDS);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals("d" + FileBackedTaskManager.MIN_COMPACTION_RECORDS, loaded.getTask(t.getId()).getDescription());
+    }
+
+    @Test
+    void batch_writesJournalOnce_andIsRestoredOnLoad() throws IOException {
+        Epic e = manager.createEpic("E", "d");
+        byte[] snapshot = Files.readAllBytes(tempPath);
+        int journalLines = Files.readAllLines(journalPath()).size();
+
+        manager.batch(b -> {
+            for (int i = 0; i < 10; i++) {
+                SubTask s = b.createSubTask("S" + i, "d", e.getId());
+                s.setStatus(TaskStatus.DONE);
+                b.updateSubTask(s);
+            }
+        });
+
+        assertArrayEquals(snapshot, Files.readAllBytes(tempPath));
+        assertEquals(journalLines + 20, Files.readAllLines(journalPath()).size());
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(10, loaded.getSubTasksOfEpic(e.getId()).size());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(e.getId()).getStatus());
+    }
+
+    @Test
+    void largeBatch_isWrittenAsSingleSnapshot() throws IOException {
+        Epic e = manager.createEpic("E", "d");
+
+        manager.batch(b -> {
+            for (int i = 0; i <= FileBackedTaskManager.MIN_COMPACTION_RECORDS; i++) {
+                SubTask s = b.createSubTask("S" + i, "d", e.getId());
+                s.setStatus(TaskStatus.IN_PROGRESS);
+                b.updateSubTask(s);
+            }
+        });
+
+        assertEquals(1, Files.readAllLines(journalPath()).size());
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(FileBackedTaskManager.MIN_COMPACTION_RECORDS + 1, loaded.getSubTasksOfEpic(e.getId()).size());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getEpic(e.getId()).getStatus());
+    }
+
+    @Test
+    void loadFromFile_linksSubtasksListedBeforeTheirEpic_andContinuesIds() throws IOException {
+        Files.writeString(tempPath, String.join("\n",
+                "id,type,title,status,description,startTime,durationInMinutes,epicId",
+                "",
+                "1,SUBTASK,S1,DONE,d,2025-01-01T09:00,30,0",
+                "2,SUBTASK,S2,NEW,d,2025-01-01T10:00,30,0",
+                "0,EPIC,E,NEW,d,,,",
+                "3,TASK,T,NEW,d,,,",
+                ""));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+
+        Epic e = loaded.getEpic(0);
+        assertEquals(2, loaded.getSubTasksOfEpic(0).size());
+        assertEquals(TaskStatus.IN_PROGRESS, e.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 0), e.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 30), e.getEndTime());
+        assertEquals(2, loaded.getPrioritizedTasks().size());
+        assertEquals(4, loaded.createTask("N", "d").getId());
+    }
+
     @Test
     void loadFromFile_throwsManagerSaveException_ifFileMissingOrUnreadable(@TempDir Path dir) {
         Path badFile = dir.resolve("nonexistent.csv");
@@ -152,5 +433,117 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
                 () -> FileBackedTaskManager.loadFromFile(badFile),
                 "Файла не существует");
     }
-}
 
+    @Test
+    void convert_betweenCsvAndBinary_preservesBoardAndJournal() throws IOException {
+        Epic e = manager.createEpic("Эпик", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        plan(s, 2025, 3, 1, 9, 0, 45);
+        s.setStartTime(s.getStartTime().withSecond(30));
+        manager.updateSubTask(s);
+        manager.createTask("T", "d");
+
+        Path converted = tempDir.resolve("converted.bin");
+        SnapshotFormat.convert(tempPath, converted, SnapshotFormat.BINARY);
+        assertSame(SnapshotFormat.BINARY, SnapshotFormat.detect(converted));
+        SnapshotFormat.convert(converted, tempPath, SnapshotFormat.CSV);
+        SnapshotFormat.convert(tempPath, tempPath, SnapshotFormat.BINARY);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertSame(SnapshotFormat.BINARY, loaded.getFormat());
+        assertEquals(3, loaded.getAllTasks().size() + loaded.getAllEpics().size() + loaded.getAllSubTasks().size());
+        assertEquals(s.getStartTime(), loaded.getSubTask(s.getId()).getStartTime());
+        assertEquals(List.of(s), loaded.getSubTasksOfEpic(e.getId()));
+    }
+
+    @Test
+    void loadFromFile_throwsManagerSaveException_ifBinarySnapshotIsTruncated() throws IOException {
+        manager.createTask("T", "d");
+        Path binary = tempDir.resolve("board.bin");
+        SnapshotFormat.convert(tempPath, binary, SnapshotFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+        Files.write(binary, Arrays.copyOf(bytes, 8));
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(binary));
+    }
+
+    @Test
+    void views_areJournaled_andHistoryIsRestoredOnLoad() {
+        Task a = manager.createTask("A", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        Task b = manager.createTask("B", "d");
+
+        manager.getTask(a.getId());
+        manager.getEpic(e.getId());
+        manager.getSubTask(s.getId());
+        manager.getTask(b.getId());
+        manager.getTask(a.getId());
+        manager.removeSubTask(s.getId());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(List.of(e, b, a), loaded.getHistory());
+    }
+
+    @Test
+    void repeatedViews_areCoalesced_andHistoryOrderSurvives() throws IOException {
+        Task a = manager.createTask("A", "d");
+        Task b = manager.createTask("B", "d");
+        manager.flush();
+
+        for (int i = 0; i < 100; i++) {
+            manager.getTask(a.getId());
+            manager.getTask(b.getId());
+        }
+        manager.getTask(a.getId());
+        manager.createTask("C", "d");
+        manager.flush();
+
+        long views = Files.readAllLines(journalPath()).stream().filter(r -> r.startsWith("VIEW,")).count();
+        assertTrue(views >= 2 && views <= 10, "записей просмотра: " + views);
+        assertEquals(List.of(b, a), FileBackedTaskManager.loadFromFile(tempPath).getHistory());
+
+        manager.getTask(b.getId());
+        manager.close();
+        assertEquals(List.of(a, b), FileBackedTaskManager.loadFromFile(tempPath).getHistory());
+    }
+
+    @Test
+    void pendingViews_areWritten_onceLimitOfTasksIsReached() throws IOException {
+        Path file = tempDir.resolve("views.csv");
+        Path journal = tempDir.resolve("views.csv.journal");
+        try (FileBackedTaskManager direct = new FileBackedTaskManager(file, format(), null)) {
+            List<Task> viewed = new ArrayList<>();
+            for (int i = 0; i < FileBackedTaskManager.MAX_PENDING_VIEWS; i++) {
+                viewed.add(direct.createTask("T" + i, "d"));
+            }
+            long journalSize = Files.size(journal);
+
+            for (int i = 0; i < viewed.size() - 1; i++) {
+                direct.getTask(viewed.get(i).getId());
+            }
+            assertEquals(journalSize, Files.size(journal));
+
+            direct.getTask(viewed.get(viewed.size() - 1).getId());
+            assertTrue(Files.size(journal) > journalSize);
+            assertEquals(direct.getHistory(), FileBackedTaskManager.loadFromFile(file).getHistory());
+        }
+    }
+
+    @Test
+    void history_isWrittenIntoSnapshot_andJournalViewsFollowIt() {
+        Task a = manager.createTask("A", "d");
+        Task b = manager.createTask("B", "d");
+        manager.getTask(b.getId());
+        manager.getTask(a.getId());
+        manager.save();
+        manager.getTask(b.getId());
+        manager.flush();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempPath);
+        assertEquals(List.of(a, b), loaded.getHistory());
+
+        loaded.clearAll();
+        assertTrue(FileBackedTaskManager.loadFromFile(tempPath).getHistory().isEmpty());
+    }
+}
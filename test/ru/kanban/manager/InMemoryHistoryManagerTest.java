@@ -6,6 +6,7 @@ import ru.kanban.task.Epic;
 import ru.kanban.task.SubTask;
 import ru.kanban.task.Task;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -76,6 +77,21 @@ class InMemoryHistoryManagerTest {
         assertEquals(t2, result.getFirst());
     }
 
+    @Test
+    void shouldRemoveAllGivenIds_andClear() {
+        for (int i = 1; i <= 5; i++) {
+            history.add(new Task(i, "t" + i, "d"));
+        }
+
+        history.removeAll(new int[]{2, 4, 42});
+        assertEquals(List.of(1, 3, 5), history.getHistory().stream().map(Task::getId).toList());
+
+        history.clear();
+        assertTrue(history.getHistory().isEmpty());
+        history.add(new Task(7, "t7", "d"));
+        assertEquals(1, history.getHistory().size());
+    }
+
     @Test
     void shouldNotDuplicateTasksInHistory() {
         Task t1 = new Task(1, "t1", "desc1");
@@ -108,4 +124,58 @@ class InMemoryHistoryManagerTest {
 
         assertTrue(manager.getHistory().isEmpty());
     }
+
+    @Test
+    void shouldKeepConfiguredNumberOfEntries() {
+        HistoryManager large = Managers.getHistory(300, EvictionPolicy.LRU);
+        for (int i = 0; i < 1_000; i++) {
+            large.add(new Task(i % 400, "t" + i, "d"));
+        }
+
+        List<Task> result = large.getHistory();
+        assertEquals(300, result.size());
+        assertEquals("t700", result.getFirst().getTitle());
+        assertEquals("t999", result.getLast().getTitle());
+    }
+
+    @Test
+    void lfu_shouldEvictLeastViewedEntry() {
+        HistoryManager lfu = Managers.getHistory(3, EvictionPolicy.LFU);
+        Task t1 = new Task(1, "t1", "d");
+        Task t2 = new Task(2, "t2", "d");
+        Task t3 = new Task(3, "t3", "d");
+        Task t4 = new Task(4, "t4", "d");
+
+        lfu.add(t1);
+        lfu.add(t1);
+        lfu.add(t2);
+        lfu.add(t3);
+        lfu.add(t3);
+        lfu.add(t4);
+
+        assertEquals(List.of(t1, t3, t4), lfu.getHistory());
+    }
+
+    @Test
+    void timeWindow_shouldDropEntriesOlderThanWindow() {
+        MutableClock clock = new MutableClock();
+        HistoryManager windowed = new InMemoryHistoryManager(10, Duration.ofMinutes(5), clock);
+        Task t1 = new Task(1, "t1", "d");
+        Task t2 = new Task(2, "t2", "d");
+
+        windowed.add(t1);
+        clock.advance(Duration.ofMinutes(3));
+        windowed.add(t2);
+        clock.advance(Duration.ofMinutes(3));
+        assertEquals(List.of(t2), windowed.getHistory());
+
+        windowed.add(t1);
+        clock.advance(Duration.ofMinutes(4));
+        assertEquals(List.of(t1), windowed.getHistory());
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> Managers.getHistory(0, EvictionPolicy.LRU));
+    }
 }
@@ -0,0 +1,151 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kanban.manager.InstrumentedTaskManager.Operation;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.TaskStatus;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedTaskManagerTest extends TaskManagerTest<InstrumentedTaskManager> {
+
+    @TempDir
+    Path tempDir;
+
+    @Override
+    protected InstrumentedTaskManager createManager() {
+        return new InstrumentedTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    void operations_areCountedPerMethod() {
+        Epic epic = manager.createEpic("E", "d");
+        SubTask subTask = manager.createSubTask("S", "d", epic.getId());
+        manager.createSubTask("S2", "d", epic.getId());
+        subTask.setStatus(TaskStatus.DONE);
+        manager.updateSubTask(subTask);
+
+        assertEquals(1, manager.getStats(Operation.CREATE_EPIC).getCount());
+        assertEquals(2, manager.getStats(Operation.CREATE_SUBTASK).getCount());
+        assertEquals(1, manager.getStats(Operation.UPDATE_SUBTASK).getCount());
+        assertEquals(0, manager.getStats(Operation.REMOVE_TASK).getCount());
+        assertTrue(manager.getStats(Operation.CREATE_SUBTASK).getMaxNanos() > 0);
+        assertEquals(3, manager.getOperations().size());
+    }
+
+    @Test
+    void failedOperation_isStillTimed() {
+        assertThrows(IllegalArgumentException.class, () -> manager.search("a", -1));
+
+        assertEquals(1, manager.getStats(Operation.SEARCH).getCount());
+    }
+
+    @Test
+    void batch_timesWholeBatchAndEachOperation() {
+        manager.batch(m -> {
+            Epic epic = m.createEpic("E", "d");
+            m.createSubTask("S", "d", epic.getId());
+        });
+
+        assertEquals(1, manager.getStats(Operation.BATCH).getCount());
+        assertEquals(1, manager.getStats(Operation.CREATE_SUBTASK).getCount());
+    }
+
+    @Test
+    void reset_dropsCollectedStats() {
+        manager.createTask("A", "d");
+        manager.reset();
+
+        assertEquals(0, manager.getStats(Operation.CREATE_TASK).getCount());
+        assertTrue(manager.getOperations().isEmpty());
+    }
+
+    @Test
+    void indexSizes_followTheBoard() {
+        Epic epic = manager.createEpic("Release notes", "d");
+        manager.createSubTask("Draft", "d", epic.getId());
+        manager.createTask("Review", "d");
+
+        Map<String, Integer> sizes = manager.getIndexSizes();
+        assertEquals(1, (int) sizes.get("tasks"));
+        assertEquals(1, (int) sizes.get("epics"));
+        assertEquals(1, (int) sizes.get("subTasks"));
+        assertEquals(5, (int) sizes.get("searchTerms"));
+        assertEquals(0, (int) sizes.get("schedule"));
+    }
+
+    @Test
+    void concurrentManager_reportsIndexSizes() {
+        InstrumentedTaskManager concurrent = new InstrumentedTaskManager(Managers.getConcurrent());
+        concurrent.createTask("A", "d");
+
+        assertEquals(1, (int) concurrent.getIndexSizes().get("tasks"));
+    }
+
+    @Test
+    void fileBacked_reportsWritesAndLoad() throws IOException {
+        Path file = tempDir.resolve("metrics.csv");
+        try (InstrumentedTaskManager fileBacked = new InstrumentedTaskManager(new FileBackedTaskManager(file))) {
+            fileBacked.createTask("A", "d");
+            fileBacked.createTask("B", "d");
+
+            assertEquals(1, fileBacked.getStats(Operation.SAVE).getCount());
+            assertEquals(1, fileBacked.getStats(Operation.JOURNAL_WRITE).getCount());
+            Path journal = file.resolveSibling("metrics.csv.journal");
+            assertEquals(Files.size(file) + Files.size(journal), fileBacked.getBytesWritten());
+        }
+
+        try (InstrumentedTaskManager loaded = InstrumentedTaskManager.loadFromFile(file)) {
+            assertEquals(1, loaded.getStats(Operation.LOAD).getCount());
+            assertEquals(2, loaded.getAllTasks().size());
+        }
+    }
+
+    @Test
+    void close_wrapsCheckedFailureOfDelegate_andStillUnregisters() throws Exception {
+        class FailingOnClose extends InMemoryTaskManager implements AutoCloseable {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("диск недоступен");
+            }
+        }
+        InstrumentedTaskManager monitored = Managers.getMonitored(new FailingOnClose(), "failing board");
+        ObjectName name = new ObjectName("ru.kanban:type=TaskManager,name=" + ObjectName.quote("failing board"));
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class, monitored::close);
+
+        assertInstanceOf(IOException.class, e.getCause());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    void registerMBean_exposesMetricsOverJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name;
+        try (InstrumentedTaskManager monitored = Managers.getMonitored(new InMemoryTaskManager(), "test board")) {
+            monitored.createTask("A", "d");
+            name = new ObjectName("ru.kanban:type=TaskManager,name=" + ObjectName.quote("test board"));
+            assertTrue(server.isRegistered(name));
+
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData row = operations.get(new Object[]{"CREATE_TASK"});
+            CompositeData stats = (CompositeData) row.get("value");
+            assertEquals(1L, stats.get("count"));
+            assertEquals(0L, server.getAttribute(name, "BytesWritten"));
+            assertThrows(IllegalStateException.class, () -> monitored.registerMBean("other"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
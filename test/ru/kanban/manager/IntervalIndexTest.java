@@ -0,0 +1,97 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private IntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IntervalIndex();
+    }
+
+    private static Task planned(int id, long startMinute, long minutes) {
+        Task t = new Task(id, "t" + id, "d");
+        t.setStartTime(BASE.plusMinutes(startMinute));
+        t.setDuration(Duration.ofMinutes(minutes));
+        return t;
+    }
+
+    @Test
+    void shouldDetectOverlapAndIgnoreTouchingIntervals() {
+        index.add(planned(1, 60, 30));
+
+        assertTrue(index.overlapsAny(BASE.plusMinutes(70), BASE.plusMinutes(100), -1));
+        assertTrue(index.overlapsAny(BASE.plusMinutes(30), BASE.plusMinutes(61), -1));
+        assertFalse(index.overlapsAny(BASE.plusMinutes(90), BASE.plusMinutes(120), -1));
+        assertFalse(index.overlapsAny(BASE.plusMinutes(0), BASE.plusMinutes(60), -1));
+    }
+
+    @Test
+    void shouldIgnoreGivenId() {
+        index.add(planned(1, 60, 30));
+
+        assertFalse(index.overlapsAny(BASE.plusMinutes(70), BASE.plusMinutes(100), 1));
+    }
+
+    @Test
+    void shouldRemoveByIdEvenIfTaskWasChangedAfterIndexing() {
+        Task t = planned(1, 60, 30);
+        index.add(t);
+        t.setStartTime(BASE.plusMinutes(500));
+
+        index.remove(1);
+
+        assertEquals(0, index.size());
+        assertFalse(index.overlapsAny(BASE.plusMinutes(70), BASE.plusMinutes(80), -1));
+    }
+
+    @Test
+    void shouldSkipTasksWithoutEndTime() {
+        Task t = new Task(1, "t", "d");
+        t.setStartTime(BASE);
+        index.add(t);
+
+        assertEquals(0, index.size());
+        assertFalse(index.overlapsAny(BASE.minusMinutes(10), BASE.plusMinutes(10), -1));
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomIntervals() {
+        Random random = new Random(42);
+        List<Task> stored = new ArrayList<>();
+        for (int id = 0; id < 500; id++) {
+            Task t = planned(id, random.nextInt(10_000), 1 + random.nextInt(120));
+            stored.add(t);
+            index.add(t);
+        }
+        for (int i = 0; i < 200; i++) {
+            Task removed = stored.remove(random.nextInt(stored.size()));
+            index.remove(removed.getId());
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(10_200));
+            LocalDateTime end = start.plusMinutes(random.nextInt(90));
+            int ignoreId = random.nextInt(500);
+
+            boolean expected = stored.stream()
+                    .filter(t -> t.getId() != ignoreId)
+                    .anyMatch(t -> start.isBefore(t.getEndTime()) && t.getStartTime().isBefore(end));
+            assertEquals(expected, index.overlapsAny(start, end, ignoreId));
+        }
+    }
+}
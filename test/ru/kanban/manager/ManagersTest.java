@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class ManagersTest {
 
@@ -14,6 +15,20 @@ class ManagersTest {
         assertInstanceOf(InMemoryTaskManager.class, manager);
     }
 
+    @Test
+    void shouldReturnConcurrentTaskManager() {
+        TaskManager manager = Managers.getConcurrent();
+        assertNotNull(manager);
+        assertInstanceOf(ConcurrentTaskManager.class, manager);
+    }
+
+    @Test
+    void shouldWrapManagerWithMetrics() {
+        TaskManager inner = Managers.getDefault();
+        InstrumentedTaskManager manager = Managers.getInstrumented(inner);
+        assertSame(inner, manager.getDelegate());
+    }
+
     @Test
     void shouldReturnHistoryManager() {
         HistoryManager history = Managers.getDefaultHistory();
@@ -0,0 +1,178 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kanban.task.Epic;
+import ru.kanban.task.SubTask;
+import ru.kanban.task.Task;
+import ru.kanban.task.TaskStatus;
+import ru.kanban.task.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedArchiveTaskManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryTaskManager source;
+    private Path archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = new InMemoryTaskManager();
+        for (int i = 0; i < 50; i++) {
+            Task t = source.createTask("Задача " + i, "описание");
+            if (i % 2 == 0) {
+                t.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i));
+                t.setDuration(Duration.ofMinutes(30));
+                source.updateTask(t);
+            }
+        }
+        Epic epic = source.createEpic("Эпик", "d");
+        SubTask done = source.createSubTask("S1", "d", epic.getId());
+        done.setStatus(TaskStatus.DONE);
+        done.setStartTime(LocalDateTime.of(2024, 12, 1, 9, 0));
+        done.setDuration(Duration.ofMinutes(60));
+        source.updateSubTask(done);
+        source.createSubTask("S2", "d", epic.getId());
+        source.createEpic("Пустой", "d");
+
+        archive = tempDir.resolve("archive.bin");
+        SnapshotFormat.BINARY.write(archive, 7, source.getSnapshot());
+    }
+
+    @Test
+    void open_decodesRecordsOnAccess_andMatchesSourceBoard() {
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(archive);
+
+        assertEquals(7, mapped.getGeneration());
+        assertBoardsEqual(mapped);
+        assertNull(mapped.getTask(10_000));
+        assertEquals(List.of(), mapped.getSubTasksOfEpic(10_000));
+        assertEquals(mapped.getTask(0), mapped.getHistory().getLast());
+    }
+
+    @Test
+    void recordsCrossingSegmentBoundaries_areReadByteByByte() {
+        assertBoardsEqual(MappedArchiveTaskManager.open(archive, 7));
+    }
+
+    @Test
+    void snapshotWithoutIndex_isIndexedByScanningRecords() throws IOException {
+        byte[] bytes = Files.readAllBytes(archive);
+        long indexStart = ByteBuffer.wrap(bytes, bytes.length - 16, 8).getLong();
+        Path plain = tempDir.resolve("plain.bin");
+        Files.write(plain, Arrays.copyOf(bytes, (int) indexStart));
+
+        assertBoardsEqual(MappedArchiveTaskManager.open(plain, 64));
+    }
+
+    @Test
+    void rangeQueries_matchSourceBoard() {
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(archive);
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 3, 15);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 1, 20, 0);
+
+        assertEquals(source.getTasksBetween(from, to), mapped.getTasksBetween(from, to));
+        assertEquals(source.nextTasksAfter(from, 3), mapped.nextTasksAfter(from, 3));
+        assertEquals(source.firstFreeSlot(Duration.ofMinutes(45), from),
+                mapped.firstFreeSlot(Duration.ofMinutes(45), from));
+    }
+
+    @Test
+    void rangeQueries_seeLongTask_behindTaskWithoutDuration() throws IOException {
+        InMemoryTaskManager board = new InMemoryTaskManager();
+        Task a = board.createTask("A", "d");
+        a.setStartTime(LocalDateTime.of(2025, 1, 1, 9, 0));
+        a.setDuration(Duration.ofHours(3));
+        board.updateTask(a);
+        Task b = board.createTask("B", "d");
+        b.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        board.updateTask(b);
+        Path file = tempDir.resolve("open-ended.bin");
+        SnapshotFormat.BINARY.write(file, 1, board.getSnapshot());
+
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(file);
+
+        assertEquals(List.of(a),
+                mapped.getTasksBetween(LocalDateTime.of(2025, 1, 1, 11, 0), LocalDateTime.of(2025, 1, 1, 13, 0)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0),
+                mapped.firstFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 10, 30)));
+    }
+
+    @Test
+    void pagesAndStreams_matchSourceBoard() {
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(archive);
+
+        assertEquals(source.getTasksPage(10, 5), mapped.getTasksPage(10, 5));
+        assertEquals(source.getEpicsPage(TaskManager.FIRST_PAGE, 5), mapped.getEpicsPage(TaskManager.FIRST_PAGE, 5));
+        assertEquals(source.streamSubTasks().toList(), mapped.streamSubTasks().toList());
+        assertEquals(source.streamTasks().toList(), mapped.streamTasks().toList());
+    }
+
+    @Test
+    void statusQueries_matchSourceBoard() {
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(archive);
+
+        assertEquals(source.countByStatus(), mapped.countByStatus());
+        assertEquals(source.getByStatus(TaskStatus.DONE), mapped.getByStatus(TaskStatus.DONE));
+        assertEquals(source.getByStatus(TaskType.TASK, TaskStatus.NEW), mapped.getByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(source.search("задача 1", 5), mapped.search("задача 1", 5));
+    }
+
+    @Test
+    void mutations_areRejected() {
+        MappedArchiveTaskManager mapped = MappedArchiveTaskManager.open(archive);
+
+        assertThrows(UnsupportedOperationException.class, () -> mapped.createTask("T", "d"));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.removeTask(0));
+        assertThrows(UnsupportedOperationException.class, mapped::clearAll);
+        assertEquals(50, mapped.getAllTasks().size());
+    }
+
+    @Test
+    void open_throwsManagerSaveException_forCsvOrTruncatedFile() throws IOException {
+        Path csv = tempDir.resolve("board.csv");
+        SnapshotFormat.CSV.write(csv, 1, source.getSnapshot());
+        assertThrows(ManagerSaveException.class, () -> MappedArchiveTaskManager.open(csv));
+
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(archive), 3));
+        assertThrows(ManagerSaveException.class, () -> MappedArchiveTaskManager.open(truncated));
+    }
+
+    private void assertBoardsEqual(MappedArchiveTaskManager mapped) {
+        for (Task t : source.getAllTasks()) {
+            Task loaded = mapped.getTask(t.getId());
+            assertEquals(t, loaded);
+            assertEquals(t.getStartTime(), loaded.getStartTime());
+        }
+        for (Epic e : source.getAllEpics()) {
+            Epic loaded = mapped.getEpic(e.getId());
+            assertEquals(e, loaded);
+            assertEquals(e.getStartTime(), loaded.getStartTime());
+            assertEquals(e.getEndTime(), loaded.getEndTime());
+            assertEquals(byId(source.getSubTasksOfEpic(e.getId())), byId(mapped.getSubTasksOfEpic(e.getId())));
+        }
+        for (SubTask s : source.getAllSubTasks()) {
+            assertEquals(s, mapped.getSubTask(s.getId()));
+        }
+        assertEquals(source.getPrioritizedTasks(), mapped.getPrioritizedTasks());
+    }
+
+    private static List<SubTask> byId(List<SubTask> subTasks) {
+        return subTasks.stream().sorted(Comparator.comparingInt(Task::getId)).toList();
+    }
+}
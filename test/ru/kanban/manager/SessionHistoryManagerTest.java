@@ -0,0 +1,133 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SessionHistoryManager history =
+            new SessionHistoryManager(InMemoryHistoryManager::new, 100, Duration.ofMinutes(10), clock);
+
+    @Test
+    void boundSessions_haveSeparateHistories() {
+        Task t1 = new Task(1, "t1", "d");
+        Task t2 = new Task(2, "t2", "d");
+        TaskManager manager = new InMemoryTaskManager(history);
+        manager.addTask(t1);
+        manager.addTask(t2);
+
+        history.bind("alice", () -> {
+            manager.getTask(1);
+            history.bind("bob", () -> {
+                manager.getTask(2);
+                assertEquals(List.of(t2), manager.getHistory());
+            });
+            assertEquals(List.of(t1), manager.getHistory());
+        });
+        assertEquals(SessionHistoryManager.DEFAULT_SESSION, history.currentSession());
+        assertTrue(manager.getHistory().isEmpty());
+        assertEquals(List.of(t2), history.getHistory("bob"));
+
+        manager.removeTask(2);
+        assertTrue(history.getHistory("bob").isEmpty());
+        assertEquals(List.of(t1), history.getHistory("alice"));
+    }
+
+    @Test
+    void idleSessions_areEvicted() {
+        history.bind("alice", () -> history.add(new Task(1, "t1", "d")));
+        clock.advance(Duration.ofMinutes(6));
+        history.bind("bob", () -> history.add(new Task(2, "t2", "d")));
+        assertEquals(2, history.sessionCount());
+
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals(1, history.sessionCount());
+        assertTrue(history.getHistory("alice").isEmpty());
+        assertEquals(1, history.getHistory("bob").size());
+        assertEquals(1, history.indexedViews());
+    }
+
+    @Test
+    void sessionCount_isBounded() {
+        SessionHistoryManager bounded =
+                new SessionHistoryManager(InMemoryHistoryManager::new, 32, Duration.ofHours(1), clock);
+        for (int i = 0; i < 1_000; i++) {
+            Task task = new Task(i, "t", "d");
+            bounded.bind("user" + i, () -> bounded.add(task));
+        }
+        assertTrue(bounded.sessionCount() <= 32);
+        assertEquals(1, bounded.getHistory("user999").size());
+        assertEquals(bounded.sessionCount(), bounded.indexedViews());
+    }
+
+    @Test
+    void removingTask_touchesOnlySessionsThatViewedIt_andIndexStaysBounded() {
+        SessionHistoryManager small = new SessionHistoryManager(
+                () -> new InMemoryHistoryManager(3, EvictionPolicy.LRU), 100, Duration.ofHours(1), clock);
+        Task shared = new Task(1, "shared", "d");
+        small.bind("alice", () -> small.add(shared));
+        small.bind("bob", () -> {
+            small.add(shared);
+            for (int i = 100; i < 1_100; i++) {
+                small.add(new Task(i, "t", "d"));
+            }
+        });
+        small.bind("carol", () -> small.add(new Task(2, "own", "d")));
+
+        // Боб посмотрел 1001 задачу, но в индексе остаются не больше 17 его id.
+        assertTrue(small.indexedViews() <= 19);
+
+        small.remove(1);
+        assertTrue(small.getHistory("alice").isEmpty());
+        assertEquals(3, small.getHistory("bob").size());
+        assertEquals(1, small.getHistory("carol").size());
+
+        small.endSession("bob");
+        small.endSession("carol");
+        assertEquals(0, small.indexedViews());
+    }
+
+    @Test
+    void concurrentUsers_recordOnlyTheirOwnViews() throws InterruptedException {
+        int users = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            int user = u;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                history.bind("user" + user, () -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        history.add(new Task(user * 10_000 + i % 20, "t", "d"));
+                    }
+                });
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int u = 0; u < users; u++) {
+            List<Task> own = history.getHistory("user" + u);
+            assertEquals(InMemoryHistoryManager.DEFAULT_CAPACITY, own.size());
+            int user = u;
+            assertTrue(own.stream().allMatch(t -> t.getId() / 10_000 == user));
+        }
+    }
+}
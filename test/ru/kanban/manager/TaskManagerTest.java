@@ -9,7 +9,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -135,6 +137,190 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(List.of(b, c), p);
     }
 
+    @Test
+    void statusIndex_followsUpdatesRemovalsAndEpicRecalculation() {
+        Task t = manager.createTask("T", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s1 = manager.createSubTask("S1", "d", e.getId());
+        SubTask s2 = manager.createSubTask("S2", "d", e.getId());
+
+        assertEquals(List.of(t, e, s1, s2), manager.getByStatus(TaskStatus.NEW));
+        assertEquals(Map.of(TaskStatus.NEW, 4, TaskStatus.IN_PROGRESS, 0, TaskStatus.DONE, 0),
+                manager.countByStatus());
+
+        s1.setStatus(TaskStatus.DONE);
+        manager.updateSubTask(s1);
+        t.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(t);
+
+        assertEquals(List.of(t, e), manager.getByStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(s1), manager.getByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+        assertEquals(List.of(s2), manager.getByStatus(TaskType.SUBTASK, TaskStatus.NEW));
+
+        manager.removeSubTask(s2.getId());
+        assertEquals(List.of(e), manager.getByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        manager.removeAllSubTasks();
+        assertEquals(List.of(e), manager.getByStatus(TaskStatus.NEW));
+
+        manager.removeTask(t.getId());
+        manager.removeEpic(e.getId());
+        assertEquals(Map.of(TaskStatus.NEW, 0, TaskStatus.IN_PROGRESS, 0, TaskStatus.DONE, 0),
+                manager.countByStatus());
+    }
+
+    @Test
+    void search_matchesWordPrefixes_caseAndYoInsensitive_andRanksTitleFirst() {
+        Task inDescription = manager.createTask("Отчёт", "подготовить ЁЛКУ к празднику");
+        Task inTitle = manager.createTask("Ёлка во дворе", "купить игрушки");
+        Epic epic = manager.createEpic("Праздник", "новогодний");
+        SubTask other = manager.createSubTask("Гирлянда", "повесить", epic.getId());
+
+        assertEquals(List.of(inTitle, inDescription), manager.search("елк", 10));
+        assertEquals(List.of(inTitle), manager.search("елк", 1));
+        assertEquals(List.of(epic, inDescription), manager.search("праздн", 10));
+        assertEquals(List.of(inDescription), manager.search("елку празд", 10));
+        assertTrue(manager.search("елка гирлянда", 10).isEmpty());
+        assertTrue(manager.search("  ,. ", 10).isEmpty());
+
+        other.setTitle("Ёлочная гирлянда");
+        manager.updateSubTask(other);
+        assertEquals(List.of(inTitle, other, inDescription), manager.search("ёл", 10));
+
+        manager.removeTask(inTitle.getId());
+        manager.removeEpic(epic.getId());
+        assertEquals(List.of(inDescription), manager.search("ел", 10));
+    }
+
+    @Test
+    void listsAndEpicSubtasks_comeBackInIdOrder() {
+        Epic first = manager.createEpic("E1", "d");
+        Epic second = manager.createEpic("E2", "d");
+        List<Integer> firstSubs = new ArrayList<>();
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            firstSubs.add(manager.createSubTask("S" + i, "d", first.getId()).getId());
+            manager.createSubTask("Z" + i, "d", second.getId());
+            taskIds.add(manager.createTask("T" + i, "d").getId());
+        }
+        manager.removeTask(taskIds.remove(10));
+        manager.removeSubTask(firstSubs.remove(3));
+
+        assertEquals(taskIds, manager.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals(firstSubs, manager.getSubTasksOfEpic(first.getId()).stream().map(Task::getId).toList());
+        assertEquals(List.of(first, second), manager.getAllEpics());
+        List<Integer> allSubs = manager.getAllSubTasks().stream().map(Task::getId).toList();
+        assertEquals(allSubs.stream().sorted().toList(), allSubs);
+        assertEquals(79, allSubs.size());
+    }
+
+    @Test
+    void pages_walkStoresInIdOrder_andStreamsMatchThem() {
+        Epic e = manager.createEpic("E", "d");
+        for (int i = 0; i < 7; i++) {
+            manager.createTask("T" + i, "d");
+            manager.createSubTask("S" + i, "d", e.getId());
+        }
+
+        List<Task> first = manager.getTasksPage(TaskManager.FIRST_PAGE, 3);
+        List<Task> second = manager.getTasksPage(first.getLast().getId(), 3);
+        List<Task> third = manager.getTasksPage(second.getLast().getId(), 3);
+
+        assertEquals(List.of("T0", "T1", "T2"), first.stream().map(Task::getTitle).toList());
+        assertEquals(List.of("T3", "T4", "T5"), second.stream().map(Task::getTitle).toList());
+        assertEquals(List.of("T6"), third.stream().map(Task::getTitle).toList());
+        assertTrue(manager.getTasksPage(third.getLast().getId(), 3).isEmpty());
+
+        assertEquals(List.of(e), manager.getEpicsPage(TaskManager.FIRST_PAGE, 10));
+        assertEquals(manager.getSubTasksPage(TaskManager.FIRST_PAGE, 100), manager.streamSubTasks().toList());
+        assertEquals(7, manager.streamTasks().count());
+        assertEquals(List.of(e), manager.streamEpics().toList());
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksPage(0, -1));
+    }
+
+    @Test
+    void getTasksBetween_returnsTasksIntersectingRange_includingOneStartedEarlier() {
+        Task early = manager.createTask("early", "d");
+        Task inside = manager.createTask("inside", "d");
+        Task late = manager.createTask("late", "d");
+        manager.createTask("unplanned", "d");
+        plan(early, 2025, 1, 1, 8, 0, 120);
+        plan(inside, 2025, 1, 1, 10, 0, 30);
+        plan(late, 2025, 1, 1, 12, 0, 30);
+        manager.updateTask(early);
+        manager.updateTask(inside);
+        manager.updateTask(late);
+
+        assertEquals(List.of(early, inside),
+                manager.getTasksBetween(LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 12, 0)));
+        assertEquals(List.of(inside),
+                manager.getTasksBetween(LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 1, 11, 0)));
+        assertTrue(manager.getTasksBetween(LocalDateTime.of(2025, 1, 2, 0, 0),
+                LocalDateTime.of(2025, 1, 3, 0, 0)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksBetween(
+                LocalDateTime.of(2025, 1, 2, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void nextTasksAfter_returnsAtMostLimitTasksInStartOrder() {
+        Epic e = manager.createEpic("E", "d");
+        for (int i = 0; i < 5; i++) {
+            SubTask s = manager.createSubTask("S" + i, "d", e.getId());
+            plan(s, 2025, 1, 1, 8 + i, 0, 30);
+            manager.updateSubTask(s);
+        }
+
+        List<Task> next = manager.nextTasksAfter(LocalDateTime.of(2025, 1, 1, 9, 0), 2);
+
+        assertEquals(List.of("S1", "S2"), next.stream().map(Task::getTitle).toList());
+        assertEquals(0, manager.nextTasksAfter(LocalDateTime.of(2025, 1, 1, 9, 0), 0).size());
+        assertEquals(5, manager.nextTasksAfter(LocalDateTime.of(2024, 1, 1, 0, 0), 100).size());
+        assertThrows(IllegalArgumentException.class, () -> manager.nextTasksAfter(LocalDateTime.now(), -1));
+    }
+
+    @Test
+    void firstFreeSlot_skipsBusyIntervals_untilWindowFits() {
+        Task a = manager.createTask("a", "d");
+        Task b = manager.createTask("b", "d");
+        Task c = manager.createTask("c", "d");
+        plan(a, 2025, 1, 1, 9, 0, 60);
+        plan(b, 2025, 1, 1, 10, 30, 30);
+        plan(c, 2025, 1, 1, 11, 30, 60);
+        manager.updateTask(a);
+        manager.updateTask(b);
+        manager.updateTask(c);
+
+        assertEquals(LocalDateTime.of(2025, 1, 1, 8, 0),
+                manager.firstFreeSlot(Duration.ofMinutes(60), LocalDateTime.of(2025, 1, 1, 8, 0)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0),
+                manager.firstFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 9, 15)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 30),
+                manager.firstFreeSlot(Duration.ofMinutes(45), LocalDateTime.of(2025, 1, 1, 9, 15)));
+
+        Task placed = manager.createTask("placed", "d");
+        placed.setStartTime(manager.firstFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 9, 0)));
+        placed.setDuration(Duration.ofMinutes(30));
+        manager.updateTask(placed);
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), manager.getTask(placed.getId()).getStartTime());
+    }
+
+    @Test
+    void rangeQueries_seeLongTask_behindTaskWithoutDuration() {
+        Task a = manager.createTask("A", "d");
+        plan(a, 2025, 1, 1, 9, 0, 180);
+        manager.updateTask(a);
+        Task b = manager.createTask("B", "d");
+        b.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        manager.updateTask(b);
+
+        assertEquals(List.of(a),
+                manager.getTasksBetween(LocalDateTime.of(2025, 1, 1, 11, 0), LocalDateTime.of(2025, 1, 1, 13, 0)));
+        assertEquals(List.of(a, b),
+                manager.getTasksBetween(LocalDateTime.of(2025, 1, 1, 9, 30), LocalDateTime.of(2025, 1, 1, 13, 0)));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0),
+                manager.firstFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 10, 30)));
+    }
+
     @Test
     void addingOverlappingTasks_throwsIllegalArgument() {
         Task a = manager.createTask("A", "d");
@@ -147,6 +333,21 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertThrows(IllegalArgumentException.class, () -> manager.updateTask(b));
     }
 
+    @Test
+    void adjacentTasks_doNotOverlap_andTaskMayBeMovedWithinItsOwnSlot() {
+        Task a = manager.createTask("A", "d");
+        plan(a, 2025, 1, 1, 10, 0, 30);
+        manager.updateTask(a);
+
+        Task b = manager.createTask("B", "d");
+        plan(b, 2025, 1, 1, 10, 30, 30);
+        assertDoesNotThrow(() -> manager.updateTask(b));
+
+        plan(a, 2025, 1, 1, 9, 50, 40);
+        assertDoesNotThrow(() -> manager.updateTask(a));
+        assertEquals(List.of(a, b), manager.getPrioritizedTasks());
+    }
+
     @Test
     void createTask_setsId_stores_and_notInPriorityWithoutTime() {
         Task t = manager.createTask("T", "desc");
@@ -260,6 +461,49 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(List.of(a, b), p);
     }
 
+    @Test
+    void startTimeChangedInPlace_isMovedInSchedule_andTitleChangeKeepsPosition() {
+        Task a = manager.createTask("A", "d");
+        Task b = manager.createTask("B", "d");
+        plan(a, 2025, 1, 1, 9, 0, 30);
+        plan(b, 2025, 1, 1, 10, 0, 30);
+        manager.updateTask(a);
+        manager.updateTask(b);
+
+        a.setStartTime(LocalDateTime.of(2025, 1, 1, 11, 0));
+        manager.updateTask(a);
+        assertEquals(List.of(b, a), manager.getPrioritizedTasks());
+
+        manager.removeTask(a.getId());
+        assertEquals(List.of(b), manager.getPrioritizedTasks());
+
+        b.setTitle("B2");
+        manager.updateTask(b);
+        assertEquals(List.of(b), manager.getPrioritizedTasks());
+        assertEquals(List.of(b), manager.search("b2", 5));
+        assertEquals(0, b.getChanges());
+    }
+
+    @Test
+    void startTimeClearedInPlace_leavesSchedule_andRemovalStaysClean() {
+        Task a = manager.createTask("A", "d");
+        Task b = manager.createTask("B", "d");
+        plan(a, 2025, 1, 1, 9, 0, 30);
+        plan(b, 2025, 1, 1, 10, 0, 30);
+        manager.updateTask(a);
+        manager.updateTask(b);
+
+        a.setStartTime(null);
+        manager.updateTask(a);
+        assertEquals(List.of(b), manager.getPrioritizedTasks());
+
+        manager.removeTask(a.getId());
+        manager.removeTask(b.getId());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        assertTrue(manager.getTasksBetween(LocalDateTime.of(2025, 1, 1, 0, 0),
+                LocalDateTime.of(2025, 1, 2, 0, 0)).isEmpty());
+    }
+
     @Test
     void updateSubTask_recalculatesEpicTimeAndStatus() {
         Epic e = manager.createEpic("E", "d");
@@ -342,6 +586,89 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(manager.getPrioritizedTasks().isEmpty());
     }
 
+    @Test
+    void batch_appliesAllOperations_andRecalculatesTouchedEpics() {
+        Epic e = manager.createEpic("E", "d");
+        Task[] created = new Task[1];
+
+        manager.batch(b -> {
+            created[0] = b.createTask("T", "d");
+            SubTask s1 = b.createSubTask("S1", "d", e.getId());
+            SubTask s2 = b.createSubTask("S2", "d", e.getId());
+            plan(s1, 2025, 1, 1, 9, 0, 30);
+            plan(s2, 2025, 1, 1, 10, 0, 30);
+            s1.setStatus(TaskStatus.DONE);
+            b.updateSubTask(s1);
+            b.updateSubTask(s2);
+        });
+
+        assertNotNull(manager.getTask(created[0].getId()));
+        Epic after = manager.getEpic(e.getId());
+        assertEquals(TaskStatus.IN_PROGRESS, after.getStatus());
+        assertEquals(Duration.ofMinutes(60), after.getDuration());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 0), after.getStartTime());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void batch_keepsAppliedOperations_whenAnOperationFails() {
+        Epic e = manager.createEpic("E", "d");
+
+        assertThrows(IllegalArgumentException.class, () -> manager.batch(b -> {
+            SubTask s = b.createSubTask("S", "d", e.getId());
+            s.setStatus(TaskStatus.DONE);
+            b.updateSubTask(s);
+            b.createSubTask("X", "d", 9999);
+        }));
+
+        assertEquals(1, manager.getSubTasksOfEpic(e.getId()).size());
+        assertEquals(TaskStatus.DONE, manager.getEpic(e.getId()).getStatus());
+    }
+
+    @Test
+    void removeAllTasks_keepsEpicsAndSubtasks() {
+        Task t = manager.createTask("T", "d");
+        Epic e = manager.createEpic("E", "d");
+        SubTask s = manager.createSubTask("S", "d", e.getId());
+        plan(t, 2025, 1, 1, 8, 0, 30);
+        plan(s, 2025, 1, 1, 9, 0, 30);
+        manager.updateTask(t);
+        manager.updateSubTask(s);
+        manager.getTask(t.getId());
+        manager.getSubTask(s.getId());
+
+        manager.removeAllTasks();
+
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertEquals(List.of(s), manager.getPrioritizedTasks());
+        assertEquals(List.of(s), manager.getHistory());
+        assertEquals(1, manager.getSubTasksOfEpic(e.getId()).size());
+    }
+
+    @Test
+    void removeAllSubTasks_resetsEpics_andCleansPriorityAndHistory() {
+        Epic e = manager.createEpic("E", "d");
+        SubTask s1 = manager.createSubTask("S1", "d", e.getId());
+        SubTask s2 = manager.createSubTask("S2", "d", e.getId());
+        plan(s1, 2025, 1, 1, 9, 0, 30);
+        s2.setStatus(TaskStatus.DONE);
+        manager.updateSubTask(s1);
+        manager.updateSubTask(s2);
+        manager.getSubTask(s1.getId());
+        manager.getEpic(e.getId());
+
+        manager.removeAllSubTasks();
+
+        assertTrue(manager.getAllSubTasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        assertTrue(manager.getSubTasksOfEpic(e.getId()).isEmpty());
+        Epic after = manager.getEpic(e.getId());
+        assertEquals(TaskStatus.NEW, after.getStatus());
+        assertEquals(Duration.ZERO, after.getDuration());
+        assertNull(after.getStartTime());
+        assertEquals(List.of(after), manager.getHistory());
+    }
+
     @Test
     void clearAll_clearsEverything_includingPriorityAndHistory() {
         Task t = manager.createTask("T", "d");
@@ -363,6 +690,46 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(manager.getAllSubTasks().isEmpty());
         assertTrue(manager.getPrioritizedTasks().isEmpty());
         assertTrue(manager.getHistory().isEmpty());
+
+        Task again = manager.createTask("T", "d");
+        plan(again, 2025, 1, 1, 8, 0, 30);
+        manager.updateTask(again);
+        assertEquals(List.of(again), manager.getPrioritizedTasks());
     }
-}
 
+    @Test
+    void snapshot_isReusedUntilBoardChanges() {
+        Task t = manager.createTask("A", "a");
+        long version = manager.getVersion();
+        BoardSnapshot first = manager.getSnapshot();
+
+        manager.getTask(t.getId());
+        assertEquals(version, manager.getVersion());
+        assertSame(first, manager.getSnapshot());
+        assertSame(manager.getAllTasks(), manager.getAllTasks());
+
+        Epic e = manager.createEpic("E", "e");
+        assertNotEquals(version, manager.getVersion());
+        BoardSnapshot second = manager.getSnapshot();
+        assertNotSame(first, second);
+        assertEquals(List.of(t), second.getTasks());
+        assertEquals(List.of(e), second.getEpics());
+        assertTrue(first.getEpics().isEmpty());
+    }
+
+    @Test
+    void snapshot_listsAreImmutable() {
+        Task t = manager.createTask("A", "a");
+        plan(t, 2025, 1, 1, 9, 0, 30);
+        manager.updateTask(t);
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(List.of(t), prioritized);
+        assertThrows(UnsupportedOperationException.class, () -> prioritized.add(t));
+        assertThrows(UnsupportedOperationException.class, () -> manager.getAllTasks().clear());
+
+        manager.removeTask(t.getId());
+        assertEquals(List.of(t), prioritized);
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.kanban.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.kanban.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Весь контракт файлового менеджера в режиме {@link Durability#SYNC} и отдельные проверки асинхронных режимов.
+ */
+public class WriteBehindFileBackedTaskManagerTest extends FileBackedTaskManagerTest {
+
+    private static final WriteBehind ON_FLUSH_ONLY = new WriteBehind(Durability.ASYNC, Duration.ofHours(1), 100_000);
+
+    @Override
+    protected WriteBehind writeBehind() {
+        return WriteBehind.of(Durability.SYNC);
+    }
+
+    @Test
+    void async_coalescesBurstIntoOneJournalWrite() {
+        Path file = tempDir.resolve("burst.csv");
+        AtomicInteger journalWrites = new AtomicInteger();
+        try (FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, ON_FLUSH_ONLY)) {
+            async.save();
+            async.setWriteListener(new FileBackedTaskManager.WriteListener() {
+                @Override
+                public void snapshotWritten(long nanos, long bytes) {
+                }
+
+                @Override
+                public void journalWritten(long nanos, long bytes) {
+                    journalWrites.incrementAndGet();
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                async.createTask("T" + i, "d");
+            }
+            assertEquals(0, journalWrites.get());
+
+            async.flush();
+            assertEquals(1, journalWrites.get());
+            assertEquals(100, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+        }
+    }
+
+    @Test
+    void async_writesOnceDirtyOpsLimitIsReached() throws InterruptedException {
+        Path file = tempDir.resolve("limit.csv");
+        WriteBehind limit = new WriteBehind(Durability.ASYNC, Duration.ofHours(1), 10);
+        try (FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, limit)) {
+            async.save();
+            long before = async.getBytesWritten();
+            for (int i = 0; i < 10; i++) {
+                async.createTask("T" + i, "d");
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (async.getBytesWritten() == before && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(async.getBytesWritten() > before);
+        }
+    }
+
+    @Test
+    void flushOnInterval_writesLoneChange_afterIdlePeriod() throws InterruptedException {
+        Path file = tempDir.resolve("interval.csv");
+        WriteBehind interval = new WriteBehind(Durability.FLUSH_ON_INTERVAL, Duration.ofMillis(20), 1024);
+        try (FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, interval)) {
+            async.save();
+            Thread.sleep(100);
+            long before = async.getBytesWritten();
+            async.createTask("A", "d");
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (async.getBytesWritten() == before && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(async.getBytesWritten() > before);
+        }
+    }
+
+    @Test
+    void views_reachJournalWithinMaxDelay_withoutFurtherWrites() throws InterruptedException {
+        Path file = tempDir.resolve("views.csv");
+        WriteBehind sync = new WriteBehind(Durability.SYNC, Duration.ofMillis(20), 1024);
+        try (FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, sync)) {
+            Task task = async.createTask("A", "d");
+            long before = async.getBytesWritten();
+            async.getTask(task.getId());
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (async.getBytesWritten() == before && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertTrue(async.getBytesWritten() > before);
+            assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(file).getHistory());
+        }
+    }
+
+    @Test
+    void close_writesPendingChanges() {
+        Path file = tempDir.resolve("close.csv");
+        FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.BINARY, ON_FLUSH_ONLY);
+        Task task = async.createTask("A", "d");
+        task.setTitle("B");
+        async.updateTask(task);
+        async.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals("B", loaded.getTask(task.getId()).getTitle());
+    }
+
+    @Test
+    void compactionSnapshot_keepsStateAtTheMomentOfCompaction() {
+        Path file = tempDir.resolve("compact.csv");
+        try (FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, ON_FLUSH_ONLY)) {
+            Task first = async.createTask("first", "d");
+            for (int i = 0; i <= FileBackedTaskManager.MIN_COMPACTION_RECORDS; i++) {
+                async.createTask("T" + i, "d");
+            }
+            first.setTitle("renamed");
+            async.updateTask(first);
+            async.flush();
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(FileBackedTaskManager.MIN_COMPACTION_RECORDS + 2, loaded.getAllTasks().size());
+        assertEquals("renamed", loaded.getTask(0).getTitle());
+    }
+
+    @Test
+    void loadFromFile_continuesInWriteBehindMode() {
+        Path file = tempDir.resolve("reload.csv");
+        try (FileBackedTaskManager sync = new FileBackedTaskManager(file)) {
+            sync.createTask("A", "d");
+        }
+        try (FileBackedTaskManager async = FileBackedTaskManager.loadFromFile(file, ON_FLUSH_ONLY)) {
+            async.createTask("B", "d");
+            async.flush();
+        }
+
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+    }
+
+    @Test
+    void writeFailure_isReportedByFlushAndNextChange() throws IOException {
+        Path dir = Files.createDirectory(tempDir.resolve("gone"));
+        Path file = dir.resolve("board.csv");
+        FileBackedTaskManager async = new FileBackedTaskManager(file, SnapshotFormat.CSV, ON_FLUSH_ONLY);
+        async.createTask("A", "d");
+        async.flush();
+        Files.delete(dir.resolve("board.csv.journal"));
+        Files.delete(file);
+        Files.delete(dir);
+
+        assertThrows(ManagerSaveException.class, async::save);
+        assertThrows(ManagerSaveException.class, () -> async.createTask("B", "d"));
+        assertThrows(ManagerSaveException.class, async::close);
+    }
+
+    @Test
+    void writeBehind_rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new WriteBehind(null, Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WriteBehind(Durability.ASYNC, Duration.ofMillis(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new WriteBehind(Durability.ASYNC, Duration.ZERO, 0));
+    }
+}
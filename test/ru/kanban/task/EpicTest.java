@@ -2,7 +2,10 @@ package ru.kanban.task;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -133,4 +136,69 @@ class EpicTest {
         Epic e1 = new Epic(1, "e1", "desc1");
         assertTrue(e1.getSubTaskIds().isEmpty());
     }
+
+    private static SubTask planned(int id, TaskStatus status, int hour, long minutes) {
+        SubTask s = new SubTask(id, "s" + id, "d", status, 1);
+        s.setStartTime(LocalDateTime.of(2025, 1, 1, hour, 0));
+        s.setDuration(Duration.ofMinutes(minutes));
+        return s;
+    }
+
+    @Test
+    void shouldAggregateIncrementallyWhenSubtasksApplied() {
+        Epic e1 = new Epic(1, "e1", "desc1");
+        SubTask s1 = planned(101, TaskStatus.DONE, 9, 30);
+        SubTask s2 = planned(102, TaskStatus.DONE, 11, 45);
+
+        e1.applySubTask(s1);
+        e1.applySubTask(s2);
+
+        assertEquals(TaskStatus.DONE, e1.getStatus());
+        assertEquals(Duration.ofMinutes(75), e1.getDuration());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 0), e1.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 45), e1.getEndTime());
+
+        s1.setStatus(TaskStatus.NEW);
+        s1.setStartTime(LocalDateTime.of(2025, 1, 1, 12, 0));
+        e1.applySubTask(s1);
+
+        assertEquals(TaskStatus.IN_PROGRESS, e1.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), e1.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 30), e1.getEndTime());
+        assertEquals(Duration.ofMinutes(75), e1.getDuration());
+    }
+
+    @Test
+    void shouldRecalculateBoundsWhenSubtaskRemoved() {
+        Epic e1 = new Epic(1, "e1", "desc1");
+        e1.applySubTask(planned(101, TaskStatus.NEW, 9, 30));
+        e1.applySubTask(planned(102, TaskStatus.DONE, 11, 30));
+
+        e1.removeSubTaskId(101);
+
+        assertEquals(TaskStatus.DONE, e1.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), e1.getStartTime());
+        assertEquals(Duration.ofMinutes(30), e1.getDuration());
+
+        e1.removeSubTaskId(102);
+
+        assertEquals(TaskStatus.NEW, e1.getStatus());
+        assertEquals(Duration.ZERO, e1.getDuration());
+        assertNull(e1.getStartTime());
+        assertNull(e1.getEndTime());
+    }
+
+    @Test
+    void shouldRebuildAggregatesFromStorage() {
+        Epic e1 = new Epic(1, "e1", "desc1");
+        SubTask s1 = planned(101, TaskStatus.IN_PROGRESS, 9, 30);
+        e1.addSubTaskId(101);
+        e1.addSubTaskId(102);
+
+        e1.recalcTimeFields(Map.of(101, s1)::get);
+
+        assertEquals(TaskStatus.IN_PROGRESS, e1.getStatus());
+        assertEquals(Duration.ofMinutes(30), e1.getDuration());
+        assertEquals(s1.getEndTime(), e1.getEndTime());
+    }
 }
@@ -2,7 +2,11 @@ package ru.kanban.task;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -61,6 +65,28 @@ class TaskTest {
         assertEquals(t1.hashCode(), t2.hashCode());
     }
 
+    @Test
+    void shouldTrackChangedFieldsUntilCommitted() {
+        Task t1 = new Task(1, "t1", "desc1");
+        assertEquals(0, t1.getChanges());
+
+        t1.setTitle("t1");
+        t1.setStatus(TaskStatus.DONE);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        t1.setStartTime(start);
+
+        assertFalse(t1.isChanged(TaskField.TITLE));
+        assertEquals(TaskField.STATUS.bit() | TaskField.START_TIME.bit(), t1.getChanges());
+        assertNull(t1.getCommittedStartTime());
+
+        t1.commitChanges();
+        assertEquals(0, t1.getChanges());
+        assertEquals(start, t1.getCommittedStartTime());
+
+        t1.setStartTime(start.plusHours(1));
+        assertEquals(start, t1.getCommittedStartTime());
+    }
+
     @Test
     void shouldContainAllFieldsInToString() {
         Task t1 = new Task(1, "t1", "desc1");
@@ -0,0 +1,139 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private enum Color { RED, GREEN }
+
+    private static CsvReader reader(String text, int bufferSize) {
+        return new CsvReader(new StringReader(text), bufferSize);
+    }
+
+    @Test
+    void shouldSplitFieldsAndRecords() throws IOException {
+        CsvReader in = reader("1,a,\r\n-42,,x\nlast", 16);
+
+        assertTrue(in.nextRecord());
+        assertEquals(3, in.size());
+        assertEquals(1, in.getInt(0));
+        assertEquals("a", in.getString(1));
+        assertTrue(in.isEmpty(2));
+        assertEquals("1,a,", in.recordText());
+
+        assertTrue(in.nextRecord());
+        assertEquals(-42L, in.getLong(0));
+        assertEquals("x", in.getString(2));
+
+        assertTrue(in.nextRecord());
+        assertEquals("last", in.getString(0));
+        assertEquals(3L, in.getRecordNumber());
+        assertFalse(in.nextRecord());
+    }
+
+    @Test
+    void shouldReadQuotedFields() throws IOException {
+        CsvReader in = reader("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",x\"y\n", 16);
+
+        assertTrue(in.nextRecord());
+        assertEquals(4, in.size());
+        assertEquals("a,b", in.getString(0));
+        assertEquals("say \"hi\"", in.getString(1));
+        assertEquals("two\nlines", in.getString(2));
+        assertEquals("x\"y", in.getString(3));
+        assertFalse(in.nextRecord());
+    }
+
+    @Test
+    void recordLongerThanBuffer_isReadWhole() throws IOException {
+        String title = "t".repeat(1000);
+        CsvReader in = reader("1," + title + ",\"" + title + "\"\n2\n", 16);
+
+        assertTrue(in.nextRecord());
+        assertEquals(title, in.getString(1));
+        assertEquals(title, in.getString(2));
+        assertTrue(in.nextRecord());
+        assertEquals(2, in.getInt(0));
+    }
+
+    @Test
+    void blankLine_isBlankRecord() throws IOException {
+        CsvReader in = reader("a\n\n  \n\"\"\n", 16);
+
+        in.nextRecord();
+        assertFalse(in.isBlankRecord());
+        in.nextRecord();
+        assertTrue(in.isBlankRecord());
+        in.nextRecord();
+        assertTrue(in.isBlankRecord());
+        in.nextRecord();
+        assertFalse(in.isBlankRecord());
+    }
+
+    @Test
+    void shouldParseDateTimesInPlace() throws IOException {
+        CsvReader in = reader("2025-03-01T09:30,2025-03-01T09:30:15,2025-03-01T09:30:00.5,"
+                + "2025-03-01T09:30:00.000000001,+12025-03-01T09:30\n", 16);
+        in.nextRecord();
+
+        assertEquals(LocalDateTime.of(2025, Month.MARCH, 1, 9, 30), in.getDateTime(0));
+        assertEquals(LocalDateTime.of(2025, Month.MARCH, 1, 9, 30, 15), in.getDateTime(1));
+        assertEquals(LocalDateTime.of(2025, Month.MARCH, 1, 9, 30, 0, 500_000_000), in.getDateTime(2));
+        assertEquals(LocalDateTime.of(2025, Month.MARCH, 1, 9, 30, 0, 1), in.getDateTime(3));
+        assertEquals(LocalDateTime.of(12025, Month.MARCH, 1, 9, 30), in.getDateTime(4));
+    }
+
+    @Test
+    void shouldMatchEnumsWithoutStrings() throws IOException {
+        CsvReader in = reader("GREEN,BLUE\n", 16);
+        in.nextRecord();
+
+        assertEquals(Color.GREEN, in.getEnum(0, Color.values()));
+        assertThrows(IllegalArgumentException.class, () -> in.getEnum(1, Color.values()));
+    }
+
+    @Test
+    void malformedValues_areRejected() throws IOException {
+        CsvReader in = reader("12a,,9223372036854775808,2025-13-01T00:00,2025-01-01T00:0x\n", 16);
+        in.nextRecord();
+
+        assertThrows(NumberFormatException.class, () -> in.getInt(0));
+        assertThrows(NumberFormatException.class, () -> in.getInt(1));
+        assertThrows(NumberFormatException.class, () -> in.getLong(2));
+        assertThrows(RuntimeException.class, () -> in.getDateTime(3));
+        assertThrows(IllegalArgumentException.class, () -> in.getDateTime(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> in.getString(5));
+    }
+
+    @Test
+    void longBounds_areParsed() throws IOException {
+        CsvReader in = reader("-9223372036854775808,9223372036854775807\n", 16);
+        in.nextRecord();
+
+        assertEquals(Long.MIN_VALUE, in.getLong(0));
+        assertEquals(Long.MAX_VALUE, in.getLong(1));
+    }
+
+    @Test
+    void unterminatedQuote_isReportedWithRecordText() throws IOException {
+        CsvReader in = reader("1,ok\n2,\"broken\n", 16);
+        in.nextRecord();
+
+        assertThrows(IllegalArgumentException.class, in::nextRecord);
+        assertEquals("2,\"broken\n", in.recordText());
+    }
+
+    @Test
+    void textAfterClosingQuote_isRejected() {
+        CsvReader in = reader("\"a\"b,c\n", 16);
+
+        assertThrows(IllegalArgumentException.class, in::nextRecord);
+    }
+}
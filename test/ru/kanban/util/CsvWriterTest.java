@@ -0,0 +1,72 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    @Test
+    void shouldQuoteOnlyWhenNeeded() throws IOException {
+        StringWriter text = new StringWriter();
+        try (CsvWriter out = new CsvWriter(text, 32)) {
+            out.field("plain").field("a,b").field("say \"hi\"").field("two\nlines").field((String) null)
+                    .endRecord();
+            out.endRecord();
+        }
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\n\n", text.toString());
+    }
+
+    @Test
+    void shouldWriteNumbers() throws IOException {
+        StringWriter text = new StringWriter();
+        try (CsvWriter out = new CsvWriter(text, 32)) {
+            out.field(0).field(-17).field(Long.MAX_VALUE).field(Long.MIN_VALUE).endRecord();
+        }
+
+        assertEquals("0,-17," + Long.MAX_VALUE + "," + Long.MIN_VALUE + "\n", text.toString());
+    }
+
+    @Test
+    void dateTimes_matchToString() throws IOException {
+        LocalDateTime[] values = {
+                LocalDateTime.of(2025, 1, 2, 3, 4),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 0, 120_000_000),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 0, 123_456_000),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 0, 123_456_789),
+                LocalDateTime.of(999, 1, 2, 3, 4),
+                LocalDateTime.of(12025, 1, 2, 3, 4)
+        };
+        for (LocalDateTime value : values) {
+            StringWriter text = new StringWriter();
+            try (CsvWriter out = new CsvWriter(text, 32)) {
+                out.field(value);
+            }
+            assertEquals(value.toString(), text.toString());
+        }
+    }
+
+    @Test
+    void longValues_passThroughSmallBuffer() throws IOException {
+        String title = "x".repeat(500);
+        String quoted = "a,\"b\"\n".repeat(100);
+        StringWriter text = new StringWriter();
+        try (CsvWriter out = new CsvWriter(text, 32)) {
+            out.field(1).field(title).field(quoted).emptyField().endRecord();
+        }
+
+        CsvReader in = new CsvReader(new StringReader(text.toString()), 16);
+        assertTrue(in.nextRecord());
+        assertEquals(4, in.size());
+        assertEquals(title, in.getString(1));
+        assertEquals(quoted, in.getString(2));
+        assertTrue(in.isEmpty(3));
+    }
+}
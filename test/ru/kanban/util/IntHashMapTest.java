@@ -0,0 +1,78 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        IntHashMap<String> map = new IntHashMap<>();
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        map.put(-7, "c");
+
+        assertEquals("b", map.get(1));
+        assertEquals("c", map.get(-7));
+        assertTrue(map.containsKey(-7));
+        assertEquals(2, map.size());
+
+        assertEquals("b", map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        IntHashMap<String> map = new IntHashMap<>();
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void shouldExposeKeysAndValues() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+
+        IntSet keys = map.keySet();
+        assertTrue(keys.contains(3));
+        assertFalse(keys.contains(2));
+        assertEquals(2, keys.toArray().length);
+        assertEquals(4, keys.stream().sum());
+        assertEquals(2, new ArrayList<>(map.values()).size());
+
+        map.clear();
+        assertTrue(keys.isEmpty());
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals(v, map.get(k)));
+        List<Integer> values = new ArrayList<>(map.values());
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(1, 10);
+        map.put(1, 11);
+        map.put(-7, 0);
+
+        assertEquals(11, map.getOrDefault(1, -1));
+        assertEquals(0, map.getOrDefault(-7, -1));
+        assertEquals(-1, map.getOrDefault(2, -1));
+        assertEquals(2, map.size());
+
+        assertTrue(map.remove(1));
+        assertFalse(map.remove(1));
+        assertFalse(map.containsKey(1));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        Random random = new Random(11);
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals((int) v, map.getOrDefault(k, -1)));
+    }
+}
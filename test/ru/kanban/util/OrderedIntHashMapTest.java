@@ -0,0 +1,87 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedIntHashMapTest {
+
+    @Test
+    void shouldPageByAscendingKey_includingNegativeKeys() {
+        OrderedIntHashMap<String> map = new OrderedIntHashMap<>();
+        map.put(5, "5");
+        map.put(-3, "-3");
+        map.put(0, "0");
+        map.put(Integer.MIN_VALUE + 1, "min");
+        map.put(-1, "-1");
+        map.put(Integer.MAX_VALUE, "max");
+
+        assertEquals(List.of("min", "-3", "-1"), map.page(Integer.MIN_VALUE, 3));
+        assertEquals(List.of("0", "5", "max"), map.page(-1, 10));
+        assertEquals(List.of("5"), map.page(2, 1));
+        assertEquals(List.of(), map.page(Integer.MAX_VALUE, 10));
+        assertEquals(List.of("min", "-3", "-1", "0", "5", "max"), map.orderedStream().toList());
+        assertThrows(IllegalArgumentException.class, () -> map.page(0, -1));
+    }
+
+    @Test
+    void shouldMatchTreeMapOrderUnderRandomOperations() {
+        Random random = new Random(11);
+        OrderedIntHashMap<Integer> map = new OrderedIntHashMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(List.copyOf(expected.values()), map.orderedStream().toList());
+        assertEquals(List.copyOf(expected.tailMap(17, false).values()).subList(0, 5), map.page(17, 5));
+
+        map.clear();
+        assertEquals(0, map.orderedStream().count());
+    }
+
+    @Test
+    void removedAndReaddedKeys_keepOrder_forExtremeKeys() {
+        OrderedIntHashMap<Integer> map = new OrderedIntHashMap<>();
+        int[] keys = {Integer.MAX_VALUE - 1, Integer.MIN_VALUE, 7, Integer.MAX_VALUE, -7, 0};
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        map.remove(7);
+        map.remove(Integer.MAX_VALUE);
+        map.remove(Integer.MIN_VALUE);
+        map.put(7, 7);
+        for (int i = 1_000; i < 1_100; i++) {
+            map.put(i, i);
+            map.remove(i);
+        }
+
+        assertEquals(List.of(-7, 0, 7, Integer.MAX_VALUE - 1), map.orderedStream().toList());
+        assertEquals(List.of(7, Integer.MAX_VALUE - 1), map.page(0, 10));
+        assertEquals(List.of(-7), map.page(Integer.MIN_VALUE, 1));
+    }
+
+    @Test
+    void orderedIterator_failsFast_whenMapChanges() {
+        OrderedIntHashMap<String> map = new OrderedIntHashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        Iterator<String> it = map.orderedIterator();
+        it.next();
+        map.put(3, "c");
+
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+}
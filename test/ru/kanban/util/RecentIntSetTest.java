@@ -0,0 +1,49 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentIntSetTest {
+
+    @Test
+    void readdedValue_movesToTheEnd() {
+        RecentIntSet set = new RecentIntSet();
+        set.add(3);
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        set.add(1);
+
+        assertArrayEquals(new int[]{2, 3, 1}, set.toArray());
+        assertEquals(3, set.size());
+        assertTrue(set.contains(2));
+        assertFalse(set.contains(4));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertArrayEquals(new int[0], set.toArray());
+    }
+
+    @Test
+    void manyReadds_matchLinkedHashSet() {
+        Random random = new Random(11);
+        RecentIntSet set = new RecentIntSet();
+        LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(40) - 20;
+            set.add(value);
+            expected.remove(value);
+            expected.add(value);
+        }
+
+        List<Integer> actual = new ArrayList<>();
+        set.forEach(actual::add);
+        assertEquals(new ArrayList<>(expected), actual);
+    }
+}
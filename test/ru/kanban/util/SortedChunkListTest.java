@@ -0,0 +1,73 @@
+package ru.kanban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedChunkListTest {
+
+    @Test
+    void randomChanges_matchTreeMap_andKeepOlderVersionsIntact() {
+        Random random = new Random(7);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        SortedChunkList<Integer, String> list = SortedChunkList.empty();
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(2_000) - 1_000;
+            SortedChunkList<Integer, String> before = list;
+            List<String> beforeValues = new ArrayList<>(before);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                list = list.without(key);
+            } else {
+                String value = key + ":" + step;
+                expected.put(key, value);
+                list = list.with(key, value);
+            }
+            assertEquals(beforeValues, before);
+            if (step % 500 == 0) {
+                assertEquals(new ArrayList<>(expected.values()), list);
+            }
+        }
+        assertEquals(new ArrayList<>(expected.values()), list);
+
+        for (Integer key : new ArrayList<>(expected.keySet())) {
+            list = list.without(key);
+        }
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void unchangedEntry_returnsSameList() {
+        String value = "a";
+        SortedChunkList<Integer, String> list = SortedChunkList.<Integer, String>empty().with(1, value);
+
+        assertSame(list, list.with(1, value));
+        assertSame(list, list.without(2));
+        assertNotSame(list, list.with(1, "b"));
+    }
+
+    @Test
+    void ofSorted_buildsSameListAsInsertions() {
+        List<Integer> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        SortedChunkList<Integer, String> inserted = SortedChunkList.empty();
+        for (int i = 0; i < 1_000; i++) {
+            keys.add(i * 2);
+            values.add("v" + i);
+            inserted = inserted.with(i * 2, "v" + i);
+        }
+
+        SortedChunkList<Integer, String> built = SortedChunkList.ofSorted(keys, values);
+
+        assertEquals(inserted, built);
+        assertEquals(List.of("v0", "v1", "v500"), List.of(built.get(0), built.get(1), built.get(500)));
+        assertEquals(List.of("v0", "v2"), built.with(2, "x").without(2).subList(0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> built.get(1_000));
+        assertThrows(UnsupportedOperationException.class, () -> built.add("x"));
+    }
+}